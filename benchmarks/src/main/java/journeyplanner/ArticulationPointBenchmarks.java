@@ -0,0 +1,53 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long it takes to find the articulation points and bridges of the whole
+ * map, on one thread and with a task per connected component.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ArticulationPointBenchmarks {
+
+	@Param("src/small")
+	public String map;
+
+	private CompactGraph graph;
+
+	@Setup
+	public void setUp() {
+		graph = Graph.fromDirectory(new File(map)).compact;
+	}
+
+	@Benchmark
+	public ArticulationPoints findAPs() {
+		ArticulationPoints ap = new ArticulationPoints(graph);
+		ap.findAPs();
+		return ap;
+	}
+
+	@Benchmark
+	public ArticulationPoints findAPsInParallel() {
+		ArticulationPoints ap = new ArticulationPoints(graph);
+		ap.findAPs(true);
+		return ap;
+	}
+}
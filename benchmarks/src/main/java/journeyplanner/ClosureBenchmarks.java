@@ -0,0 +1,85 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long it takes to keep the articulation points and bridges up to date
+ * when a segment is closed and reopened, with IncrementalArticulationPoints
+ * and by searching the whole map again after each change. Each call works
+ * through the same shuffled list of segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ClosureBenchmarks {
+
+	@Param("src/small")
+	public String map;
+
+	private CompactGraph graph;
+	private IncrementalArticulationPoints incremental;
+	private boolean[] closed;
+	private int[] segments;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		graph = Graph.fromDirectory(new File(map)).compact;
+		incremental = new IncrementalArticulationPoints(graph);
+		closed = new boolean[graph.segmentCount()];
+		segments = new int[graph.segmentCount()];
+		for (int s = 0; s < segments.length; s++)
+			segments[s] = s;
+		Random random = new Random(261);
+		for (int i = segments.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int t = segments[i];
+			segments[i] = segments[j];
+			segments[j] = t;
+		}
+	}
+
+	private int nextSegment() {
+		int s = segments[next];
+		next = (next + 1) % segments.length;
+		return s;
+	}
+
+	@Benchmark
+	public int incremental() {
+		int s = nextSegment();
+		incremental.close(s);
+		int count = incremental.count();
+		incremental.reopen(s);
+		return count + incremental.count();
+	}
+
+	@Benchmark
+	public int full() {
+		int s = nextSegment();
+		closed[s] = true;
+		ArticulationPoints ap = new ArticulationPoints(graph, closed);
+		ap.findAPs();
+		closed[s] = false;
+		ap = new ArticulationPoints(graph, closed);
+		ap.findAPs();
+		return ap.getAPS().length;
+	}
+}
@@ -0,0 +1,69 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long it takes to read a map's files: with Parser and with FastParser,
+ * and the whole of building a Graph from them without a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LoadingBenchmarks {
+
+	@Param("src/small")
+	public String map;
+
+	private File nodeFile, roadFile, segmentFile;
+
+	@Setup
+	public void setUp() {
+		File directory = new File(map);
+		nodeFile = new File(directory, "nodeID-lat-lon.tab");
+		roadFile = new File(directory, "roadID-roadInfo.tab");
+		segmentFile = new File(directory, "roadSeg-roadID-length-nodeID-nodeID-coords.tab");
+	}
+
+	@Benchmark
+	public Graph parser() {
+		Graph graph = new Graph();
+		graph.nodes = Parser.parseNodes(nodeFile, graph);
+		graph.roads = Parser.parseRoads(roadFile, graph);
+		graph.segments = Parser.parseSegments(segmentFile, graph);
+		return graph;
+	}
+
+	@Benchmark
+	public Graph fastParser() {
+		Graph graph = new Graph();
+		graph.nodes = FastParser.parseNodes(nodeFile, graph);
+		graph.roads = Parser.parseRoads(roadFile, graph);
+		graph.segments = FastParser.parseSegments(segmentFile, graph);
+		return graph;
+	}
+
+	/**
+	 * Parsing, the adjacency and the spatial indexes, as the GUI does when
+	 * there's no snapshot.
+	 */
+	@Benchmark
+	public Graph graph() {
+		return new Graph(nodeFile, roadFile, segmentFile, null);
+	}
+}
@@ -0,0 +1,82 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long the search box's prefix lookups take, with the original Trie and
+ * the RadixTrie that replaced it. The short prefix is the most common first
+ * letter of a road name, so it matches the most roads; the long one is the
+ * longest road name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PrefixSearchBenchmarks {
+
+	@Param("src/small")
+	public String map;
+
+	@Param({ "SHORT", "LONG" })
+	public String length;
+
+	private Trie trie;
+	private RadixTrie radixTrie;
+	private String prefix;
+
+	@Setup
+	public void setUp() {
+		Collection<Road> roads = Graph.fromDirectory(new File(map)).roads.values();
+		trie = new Trie(roads);
+		radixTrie = new RadixTrie(roads, Mapper.SEARCH_RESULTS, RadixTrie.Ranking.CLASS);
+
+		Map<Character, Integer> firstLetters = new HashMap<Character, Integer>();
+		String longest = "";
+		for (Road road : roads) {
+			if (road.name.isEmpty() || road.name.equals("-"))
+				continue;
+			firstLetters.merge(road.name.charAt(0), 1, Integer::sum);
+			if (road.name.length() > longest.length()
+					|| (road.name.length() == longest.length() && road.name.compareTo(longest) < 0))
+				longest = road.name;
+		}
+		char common = 0;
+		int most = 0;
+		for (Map.Entry<Character, Integer> letter : firstLetters.entrySet()) {
+			if (letter.getValue() > most
+					|| (letter.getValue() == most && letter.getKey() < common)) {
+				common = letter.getKey();
+				most = letter.getValue();
+			}
+		}
+		prefix = length.equals("SHORT") ? String.valueOf(common) : longest;
+	}
+
+	@Benchmark
+	public Collection<Road> trieGet() {
+		return trie.get(prefix);
+	}
+
+	@Benchmark
+	public int[] radixTrieTop() {
+		return radixTrie.top(prefix);
+	}
+}
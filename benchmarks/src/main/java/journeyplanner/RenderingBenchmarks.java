@@ -0,0 +1,63 @@
+package journeyplanner;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long it takes to draw the map into an offscreen image, at the view a
+ * newly loaded map opens with and zoomed out to a quarter of that scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderingBenchmarks {
+	private static final Dimension SCREEN = new Dimension(1000, 800);
+
+	@Param("src/small")
+	public String map;
+
+	@Param({ "1", "0.25" })
+	public double scale;
+
+	private Graph graph;
+	private BufferedImage image;
+	private Graphics2D g;
+	private final Location origin = new Location(-250, 250);
+
+	@Setup
+	public void setUp() {
+		graph = Graph.fromDirectory(new File(map));
+		image = new BufferedImage(SCREEN.width, SCREEN.height, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage draw() {
+		graph.draw(g, SCREEN, origin, scale);
+		return image;
+	}
+}
@@ -0,0 +1,106 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How many queries a second one RouteService answers, with each algorithm,
+ * and how that scales with the number of threads sharing it: the same
+ * benchmark is run on one, two and four threads and on one per core. Every
+ * thread works through the same fixed set of random node pairs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RouteServiceBenchmarks {
+	private static final int PAIRS = 20000;
+
+	@Param("src/small")
+	public String map;
+
+	@Param({ "ASTAR", "BIDIRECTIONAL", "CONTRACTION_HIERARCHY", "ALT" })
+	public RouteService.Algorithm algorithm;
+
+	private RouteService service;
+	private int[] starts, targets;
+
+	/**
+	 * Where each thread is up to in the pairs.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+
+		@Setup
+		public void setUp() {
+			next = (int) (Thread.currentThread().getId() * 7919 % PAIRS);
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		Graph graph = Graph.fromDirectory(new File(map));
+		service = new RouteService(graph);
+		List<Node> nodes = new ArrayList<Node>(graph.nodes.values());
+		nodes.sort(Comparator.comparingInt(n -> n.nodeID));
+		Random random = new Random(261);
+		starts = new int[PAIRS];
+		targets = new int[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			starts[i] = nodes.get(random.nextInt(nodes.size())).nodeID;
+			targets[i] = nodes.get(random.nextInt(nodes.size())).nodeID;
+		}
+		// build any preprocessing now rather than in the first query.
+		service.route(starts[0], targets[0], algorithm);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public RouteResult oneThread(Cursor cursor) {
+		return route(cursor);
+	}
+
+	@Benchmark
+	@Threads(2)
+	public RouteResult twoThreads(Cursor cursor) {
+		return route(cursor);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public RouteResult fourThreads(Cursor cursor) {
+		return route(cursor);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public RouteResult allThreads(Cursor cursor) {
+		return route(cursor);
+	}
+
+	private RouteResult route(Cursor cursor) {
+		int i = cursor.next;
+		cursor.next = i + 1 == PAIRS ? 0 : i + 1;
+		return service.route(starts[i], targets[i], algorithm);
+	}
+}
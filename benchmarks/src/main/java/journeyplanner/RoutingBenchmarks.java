@@ -0,0 +1,100 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How long a route query takes, for a short, a medium and a long route and
+ * one between nodes that aren't connected. This is the RouteService call
+ * that Mapper.searchAStar makes for the GUI's A* button.
+ *
+ * The queries are picked from a fixed set of random node pairs by the length
+ * of their routes: the 10th percentile, the median and the longest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RoutingBenchmarks {
+	private static final int SAMPLES = 2000;
+
+	@Param("src/small")
+	public String map;
+
+	@Param({ "SHORT", "MEDIUM", "LONG", "UNREACHABLE" })
+	public String query;
+
+	@Param("ASTAR")
+	public RouteService.Algorithm algorithm;
+
+	@Param("SHORTEST")
+	public RouteProfile profile;
+
+	private RouteService routes;
+	private int startID, targetID;
+
+	@Setup
+	public void setUp() {
+		Graph graph = Graph.fromDirectory(new File(map));
+		routes = new RouteService(graph);
+
+		List<Node> nodes = new ArrayList<Node>(graph.nodes.values());
+		nodes.sort(Comparator.comparingInt(n -> n.nodeID));
+		Random random = new Random(261);
+		List<RouteResult> found = new ArrayList<RouteResult>();
+		RouteResult unreachable = null;
+		for (int i = 0; i < SAMPLES; i++) {
+			int start = nodes.get(random.nextInt(nodes.size())).nodeID;
+			int target = nodes.get(random.nextInt(nodes.size())).nodeID;
+			RouteResult result = routes.route(start, target, algorithm, profile);
+			if (result.found)
+				found.add(result);
+			else if (unreachable == null)
+				unreachable = result;
+		}
+		Collections.sort(found, Comparator.comparingDouble(r -> r.distance));
+
+		RouteResult chosen;
+		switch (query) {
+		case "SHORT":
+			chosen = found.get(found.size() / 10);
+			break;
+		case "MEDIUM":
+			chosen = found.get(found.size() / 2);
+			break;
+		case "LONG":
+			chosen = found.get(found.size() - 1);
+			break;
+		default:
+			if (unreachable == null)
+				throw new IllegalStateException("no unconnected pair of nodes found in " + map);
+			chosen = unreachable;
+		}
+		startID = chosen.startID;
+		targetID = chosen.targetID;
+	}
+
+	@Benchmark
+	public RouteResult route() {
+		return routes.route(startID, targetID, algorithm, profile);
+	}
+}
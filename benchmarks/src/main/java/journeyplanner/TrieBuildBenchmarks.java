@@ -0,0 +1,98 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * How long it takes to build the original Trie and the RadixTrie over a
+ * map's roads, and how much memory each keeps once built. The footprint
+ * benchmarks build each once and report its retained size, measured with
+ * JOL, as their bytes counter. The roads and everything they lead to aren't
+ * counted, as the map keeps them anyway. The bytes allocated per build (from
+ * -prof gc) are no guide to this, as RadixTrie throws away most of what it
+ * allocates while building. See PrefixSearchBenchmarks for the queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TrieBuildBenchmarks {
+
+	@Param("src/small")
+	public String map;
+
+	private Collection<Road> roads;
+	// the roads and everything reachable from them, which both tries share
+	// with the map.
+	private GraphLayout shared;
+
+	@Setup
+	public void setUp() {
+		roads = Graph.fromDirectory(new File(map)).roads.values();
+		shared = GraphLayout.parseInstance(roads.toArray());
+	}
+
+	/**
+	 * The retained size of the last trie built, in bytes, reported by JMH
+	 * alongside the time.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public long bytes;
+	}
+
+	@Benchmark
+	public Trie trie() {
+		return new Trie(roads);
+	}
+
+	@Benchmark
+	public RadixTrie radixTrie() {
+		return new RadixTrie(roads, Mapper.SEARCH_RESULTS, RadixTrie.Ranking.CLASS);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	// lets JOL attach to the JVM to measure objects exactly.
+	@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true",
+			"-Djdk.attach.allowAttachSelf" })
+	public Trie trieFootprint(Footprint footprint) {
+		Trie trie = new Trie(roads);
+		footprint.bytes = GraphLayout.parseInstance(trie).subtract(shared).totalSize();
+		return trie;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	// lets JOL attach to the JVM to measure objects exactly.
+	@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true",
+			"-Djdk.attach.allowAttachSelf" })
+	public RadixTrie radixTrieFootprint(Footprint footprint) {
+		RadixTrie trie = new RadixTrie(roads, Mapper.SEARCH_RESULTS, RadixTrie.Ranking.CLASS);
+		footprint.bytes = GraphLayout.parseInstance(trie).subtract(shared)
+				.totalSize();
+		return trie;
+	}
+}
@@ -0,0 +1,97 @@
+package journeyplanner;
+
+/**
+ * A reusable A* search over a RoadNetwork. The fringe is an IndexedHeap with
+ * decrease-key and the per-node state is a generation-stamped SearchState, so
+ * a query allocates nothing while it runs and there is nothing to reset
+ * afterwards. One instance can answer any number of queries, but only one at a
+ * time. Costs are those of the given RouteProfile, and the straight line
+ * distance to the target is used as the heuristic unless another is given.
+ */
+public class AStarSearch implements PathSearch {
+	private final RoadNetwork graph;
+	private final SearchState state;
+	private final IndexedHeap fringe;
+	private final RouteProfile profile;
+	private final Heuristic heuristic;
+
+	private int start = -1, target = -1;
+	private int avoidedOneWays = 0;
+
+	public AStarSearch(RoadNetwork graph, RouteProfile profile) {
+		this(graph, profile, new EuclideanHeuristic(graph, profile));
+	}
+
+	public AStarSearch(RoadNetwork graph, RouteProfile profile,
+			Heuristic heuristic) {
+		this.graph = graph;
+		this.profile = profile;
+		this.state = new SearchState(graph.size());
+		this.fringe = new IndexedHeap(graph.size());
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	public boolean search(int start, int target) {
+		this.start = start;
+		this.target = target;
+		avoidedOneWays = 0;
+		state.reset();
+		fringe.clear();
+		heuristic.target(target);
+
+		state.reach(start, 0, -1, -1);
+		fringe.insertOrDecrease(start, heuristic.estimate(start));
+		while (!fringe.isEmpty()) {
+			int node = fringe.poll();
+			state.settle(node);
+			avoidedOneWays += graph.blockedOneWays(node);
+			if (node == target)
+				return true;
+
+			double cost = state.cost(node);
+			for (int e = graph.firstOut(node); e < graph.endOut(node); e++) {
+				int neighbour = graph.outTarget(e);
+				if (state.isSettled(neighbour))
+					continue;
+				double g = cost + graph.outCost(profile, e);
+				if (g < state.cost(neighbour)) {
+					state.reach(neighbour, g, node, e);
+					fringe.insertOrDecrease(neighbour,
+							g + heuristic.estimate(neighbour));
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public double cost() {
+		return state.isSettled(target) ? state.cost(target)
+				: Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public int settledCount() {
+		return state.settledCount();
+	}
+
+	@Override
+	public int avoidedOneWays() {
+		return avoidedOneWays;
+	}
+
+	@Override
+	public int[] path() {
+		if (!state.isSettled(target))
+			return new int[0];
+		// the parents lead backwards from the target, so fill from the end.
+		int length = 0;
+		for (int node = target; node != start; node = state.parentNode(node))
+			length++;
+		int[] path = new int[length];
+		for (int node = target; node != start; node = state.parentNode(node))
+			path[--length] = graph.outSegment(state.parentEdge(node));
+		return path;
+	}
+}
@@ -0,0 +1,392 @@
+package journeyplanner;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ArticulationPoints {
+    // in parallel mode, connected components are handed out in groups of
+    // about this many nodes, so islands of a few nodes don't each get a task.
+    private static final int TASK_NODES = 1 << 12;
+
+    private RoadNetwork graph;
+    // segments to leave out, as if they weren't there, or null.
+    private boolean[] closed;
+    // which nodes are articulation points, and how many there are.
+    private boolean[] isAP;
+    private int count;
+    // which segments are bridges, and how many there are.
+    private boolean[] isBridge;
+    private int bridgeCount;
+    // the biconnected component of each segment, and how many there are.
+    private int[] component;
+    private int componentCount;
+    // the connected component of each node, and how many there are.
+    private int[] connected;
+    private int connectedCount;
+    // how long the last findAPs() took.
+    private long nanos;
+
+    // search state, indexed by node index. connected components share no
+    // nodes or segments, so their searches can fill these in at once.
+    private int[] depth;
+    private int[] reachBack;
+    private int[] parentEdge;
+    private int[] nextEdge;
+
+    // for each connected component: a node in it, its size, and what its
+    // search found. biconnected components are numbered from 0 within each
+    // connected component until all of them are done.
+    private int[] roots;
+    private int[] nodeCounts;
+    private int[] segmentCounts;
+    private int[] apCounts;
+    private int[] bridgeCounts;
+    private int[] blockCounts;
+
+    /*
+     * Class to search for all of the articulation points, bridges and
+     * biconnected components of a graph in one pass. Walks the undirected
+     * adjacency of the RoadNetwork with an iterative depth-first search
+     * (Hopcroft and Tarjan's), keeping its state in primitive arrays, so
+     * each node and edge is visited once however big the graph. Each
+     * connected component is searched on its own, and in parallel mode
+     * they're searched as fork/join tasks.
+     *
+     * @param
+     * RoadNetwork graph
+     */
+
+    public ArticulationPoints(RoadNetwork graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Searches the graph as though the segments marked closed (indexed by
+     * segment index) weren't there.
+     */
+    public ArticulationPoints(RoadNetwork graph, boolean[] closed) {
+        this.graph = graph;
+        this.closed = closed;
+    }
+
+    /**
+     * The indices of the articulation points found, in index order.
+     */
+    public int[] getAPS(){
+    	int[] points = new int[count];
+    	for (int v = 0, i = 0; i < count; v++) {
+    		if (isAP[v]) {
+    			points[i++] = v;
+    		}
+    	}
+    	return points;
+    }
+
+    public int count(){
+    	return count;
+    }
+
+    /**
+     * The indices of the segments that are bridges, ie. whose removal would
+     * disconnect the graph, in index order.
+     */
+    public int[] getBridges(){
+    	int[] bridges = new int[bridgeCount];
+    	for (int s = 0, i = 0; i < bridgeCount; s++) {
+    		if (isBridge[s]) {
+    			bridges[i++] = s;
+    		}
+    	}
+    	return bridges;
+    }
+
+    public int bridgeCount(){
+    	return bridgeCount;
+    }
+
+    public int componentCount(){
+    	return componentCount;
+    }
+
+    /**
+     * The biconnected component segment s belongs to, from 0 to
+     * componentCount() - 1, or -1 if it's a self loop (which doesn't connect
+     * anything) or closed.
+     */
+    public int component(int segment){
+    	return component[segment];
+    }
+
+    /**
+     * The biconnected components node v belongs to. Articulation points
+     * belong to more than one, other nodes to one, and nodes with no
+     * segments to none.
+     */
+    public int[] components(int node){
+    	int[] found = new int[graph.endAdj(node) - graph.firstAdj(node)];
+    	int size = 0;
+    	for (int e = graph.firstAdj(node); e < graph.endAdj(node); e++) {
+    		int c = component[graph.adjSegment(e)];
+    		boolean seen = c < 0;
+    		for (int i = 0; i < size && !seen; i++) {
+    			seen = found[i] == c;
+    		}
+    		if (!seen) {
+    			found[size++] = c;
+    		}
+    	}
+    	return Arrays.copyOf(found, size);
+    }
+
+    public int connectedCount(){
+    	return connectedCount;
+    }
+
+    /**
+     * The connected component node v belongs to, from 0 to
+     * connectedCount() - 1.
+     */
+    public int connected(int node){
+    	return connected[node];
+    }
+
+    /**
+     * How long the last findAPs() took, in nanoseconds.
+     */
+    public long nanos(){
+    	return nanos;
+    }
+
+    public void findAPs() {
+        findAPs(false);
+    }
+
+    /**
+     * Finds the articulation points, bridges and biconnected components. If
+     * parallel, the connected components are searched at the same time on
+     * the common fork/join pool, which helps on maps made of several
+     * islands; the results are the same either way.
+     */
+    public void findAPs(boolean parallel) {
+        long begin = System.nanoTime();
+        int n = graph.size(), m = graph.segmentCount();
+        depth = new int[n];
+        reachBack = new int[n];
+        parentEdge = new int[n];
+        nextEdge = new int[n];
+        isAP = new boolean[n];
+        isBridge = new boolean[m];
+        component = new int[m];
+        Arrays.fill(depth, Integer.MAX_VALUE);
+        Arrays.fill(component, -1);
+
+        label();
+        ComponentTask all = new ComponentTask(0, connectedCount);
+        if (parallel) {
+        	ForkJoinPool.commonPool().invoke(all);
+        }
+        else {
+        	all.compute();
+        }
+        merge();
+        nanos = System.nanoTime() - begin;
+    }
+
+    /**
+     * Labels the connected components, counting the nodes and segments in
+     * each.
+     */
+    private void label() {
+    	int n = graph.size();
+    	connected = new int[n];
+    	Arrays.fill(connected, -1);
+    	int[] fringe = new int[n];
+    	int[] found = new int[16], nodes = new int[16], segments = new int[16];
+    	connectedCount = 0;
+    	for (int start = 0; start < n; start++) {
+    		if (connected[start] >= 0) {
+    			continue;
+    		}
+    		int c = connectedCount++;
+    		if (c == found.length) {
+    			found = Arrays.copyOf(found, 2 * c);
+    			nodes = Arrays.copyOf(nodes, 2 * c);
+    			segments = Arrays.copyOf(segments, 2 * c);
+    		}
+    		found[c] = start;
+    		int size = 0, degrees = 0;
+    		connected[start] = c;
+    		fringe[size++] = start;
+    		while (size > 0) {
+    			int v = fringe[--size];
+    			nodes[c]++;
+    			for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+    				if (!isOpen(e)) {
+    					continue;
+    				}
+    				degrees++;
+    				int w = graph.adjTarget(e);
+    				if (connected[w] < 0) {
+    					connected[w] = c;
+    					fringe[size++] = w;
+    				}
+    			}
+    		}
+    		segments[c] = degrees / 2; //each segment is in the adjacency of both its ends.
+    	}
+    	roots = Arrays.copyOf(found, connectedCount);
+    	nodeCounts = Arrays.copyOf(nodes, connectedCount);
+    	segmentCounts = Arrays.copyOf(segments, connectedCount);
+    	apCounts = new int[connectedCount];
+    	bridgeCounts = new int[connectedCount];
+    	blockCounts = new int[connectedCount];
+    }
+
+    /**
+     * Adds up what each connected component's search found, and numbers the
+     * biconnected components one after another across them.
+     */
+    private void merge() {
+    	int[] firstBlock = new int[connectedCount];
+    	count = 0;
+    	bridgeCount = 0;
+    	componentCount = 0;
+    	for (int c = 0; c < connectedCount; c++) {
+    		count += apCounts[c];
+    		bridgeCount += bridgeCounts[c];
+    		firstBlock[c] = componentCount;
+    		componentCount += blockCounts[c];
+    	}
+    	for (int v = 0; v < graph.size(); v++) {
+    		for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+    			if (graph.adjTarget(e) > v && isOpen(e)) { //only renumber each segment from one end.
+    				component[graph.adjSegment(e)] += firstBlock[connected[v]];
+    			}
+    		}
+    	}
+    }
+
+    private boolean isOpen(int e) {
+    	return closed == null || !closed[graph.adjSegment(e)];
+    }
+
+    /**
+     * Searches a range of connected components, splitting it in two while
+     * it has more than one component and more than TASK_NODES nodes.
+     */
+    private class ComponentTask extends RecursiveAction {
+    	private static final long serialVersionUID = 1L;
+    	private final int from, to;
+
+    	ComponentTask(int from, int to) {
+    		this.from = from;
+    		this.to = to;
+    	}
+
+    	@Override
+    	protected void compute() {
+    		int nodes = 0, segments = 0, mostNodes = 0, mostSegments = 0;
+    		for (int c = from; c < to; c++) {
+    			nodes += nodeCounts[c];
+    			segments += segmentCounts[c];
+    			mostNodes = Math.max(mostNodes, nodeCounts[c]);
+    			mostSegments = Math.max(mostSegments, segmentCounts[c]);
+    		}
+    		if (to - from > 1 && nodes > TASK_NODES) {
+    			// split where half the nodes have been passed.
+    			int middle = from + 1, half = nodeCounts[from];
+    			while (middle < to - 1 && half + nodeCounts[middle] <= nodes / 2) {
+    				half += nodeCounts[middle++];
+    			}
+    			invokeAll(new ComponentTask(from, middle), new ComponentTask(middle, to));
+    			return;
+    		}
+    		int[] fringe = new int[mostNodes];
+    		int[] edgeStack = new int[mostSegments];
+    		for (int c = from; c < to; c++) {
+    			search(c, fringe, edgeStack);
+    		}
+    	}
+    }
+
+    /**
+     * Searches connected component c, from its root. Every segment is
+     * pushed on the edge stack when it's first crossed; when a subtree turns
+     * out not to reach back above its parent, the segments pushed since the
+     * tree edge into it form one biconnected component.
+     */
+    private void search(int c, int[] fringe, int[] edgeStack) {
+    	int root = roots[c];
+    	int size = 0, stacked = 0, subTrees = 0;
+    	depth[root] = 0;
+    	reachBack[root] = 0;
+    	parentEdge[root] = -1;
+    	nextEdge[root] = graph.firstAdj(root);
+		fringe[size++] = root; //initialise the root, add to the fringe.
+
+		while(size > 0){
+			int current = fringe[size - 1];
+			if (nextEdge[current] < graph.endAdj(current)) {
+				int e = nextEdge[current]++;
+				int child = graph.adjTarget(e); //retrieve the next neighbour of the current node.
+				int segment = graph.adjSegment(e);
+				if (closed != null && closed[segment]) {
+					continue;
+				}
+				if (parentEdge[current] >= 0 && segment == graph.adjSegment(parentEdge[current])) {
+					continue; //do not go back along the segment to the parent, but do along any parallel one.
+				}
+				if (depth[child] < Integer.MAX_VALUE) {
+					if (depth[child] < depth[current]) {
+						edgeStack[stacked++] = segment; //a back edge, seen for the first time.
+						reachBack[current] = Math.min(reachBack[current], depth[child]);
+					}
+				}
+				else {
+					edgeStack[stacked++] = segment;
+					depth[child] = depth[current] + 1;
+					reachBack[child] = depth[child];
+					parentEdge[child] = e;
+					nextEdge[child] = graph.firstAdj(child);
+					fringe[size++] = child; //add a new node to be search in the fringe.
+				}
+			}
+			else{
+				size--; //remove search node from fringe.
+				if (current == root) {
+					continue;
+				}
+				int treeSegment = graph.adjSegment(parentEdge[current]);
+				int p = fringe[size - 1];
+				reachBack[p] = Math.min(reachBack[current], reachBack[p]);
+				if (reachBack[current] > depth[p]) {
+					isBridge[treeSegment] = true;
+					bridgeCounts[c]++;
+				}
+				if (reachBack[current] >= depth[p]) {
+					// p separates current's subtree from the rest, so its
+					// segments are one biconnected component.
+					int s;
+					do {
+						s = edgeStack[--stacked];
+						component[s] = blockCounts[c];
+					} while (s != treeSegment);
+					blockCounts[c]++;
+					if (p == root) {
+						subTrees++;
+					}
+					else if (!isAP[p]) {
+						isAP[p] = true; //add new articulation point found.
+						apCounts[c]++;
+					}
+				}
+			}
+		}
+		if (subTrees > 1){
+			isAP[root] = true; //the root is only an articulation point if it has more than one subtree.
+			apCounts[c]++;
+		}
+    }
+
+}
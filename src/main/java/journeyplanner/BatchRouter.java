@@ -0,0 +1,244 @@
+package journeyplanner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Routes a file of origin-destination pairs without the GUI, eg. for nightly
+ * analytics. It loads a map directory, or opens a GraphSnapshot file with
+ * OffHeapGraph for maps too big to load, reads the pairs (a node ID pair per
+ * line, separated by whitespace, with blank lines and lines starting with #
+ * skipped), routes them on every core with a shared RouteService, and writes
+ * one tab separated line per pair to the output file.
+ *
+ * Pairs are read and routed in chunks, and only a few chunks per thread are
+ * in flight at once, so memory use doesn't grow with the size of the input.
+ * Results are written in the same order as the pairs.
+ *
+ * Each output line has the origin and destination, the status ("ok", "no
+ * route" or "unknown node"), the distance in km, the cost under the profile
+ * (km, or hours for timed profiles), the number of nodes settled, the search
+ * latency in ms, and the length along each road as name:km, separated by
+ * semicolons. Numbers always have a decimal point, whatever the locale, and
+ * any backslash, colon, semicolon, tab or newline in a road name is escaped
+ * with a backslash.
+ *
+ * Usage: java journeyplanner.BatchRouter <map directory or snapshot> <pairs file> <output file>
+ * [algorithm] [profile] [threads]
+ *
+ * where algorithm is one of RouteService.Algorithm (ASTAR by default) and
+ * profile one of RouteProfile (SHORTEST by default).
+ */
+public class BatchRouter {
+	// pairs routed by one task, and how many tasks per thread can be waiting
+	// to be written.
+	private static final int CHUNK = 1024;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("usage: java journeyplanner.BatchRouter <map directory or snapshot>"
+					+ " <pairs file> <output file>"
+					+ " [algorithm] [profile] [threads]");
+			return;
+		}
+		RouteService.Algorithm algorithm = args.length > 3
+				? RouteService.Algorithm.valueOf(args[3]) : RouteService.Algorithm.ASTAR;
+		RouteProfile profile = args.length > 4 ? RouteProfile.valueOf(args[4])
+				: RouteProfile.SHORTEST;
+		int threads = args.length > 5 ? Integer.parseInt(args[5])
+				: Runtime.getRuntime().availableProcessors();
+
+		long begin = System.nanoTime();
+		File map = new File(args[0]);
+		RoadNetwork network = map.isFile() ? OffHeapGraph.open(map)
+				: Graph.fromDirectory(map).compact;
+		RouteService service = new RouteService(network);
+		// build any preprocessing up front rather than in the first query.
+		if (algorithm == RouteService.Algorithm.CONTRACTION_HIERARCHY) {
+			ContractionHierarchy ch = service.hierarchy(profile);
+			System.out.printf("Contraction hierarchy (%s) built in %dms with %d shortcuts.%n",
+					profile, ch.nanos() / 1000000, ch.shortcutCount());
+		} else if (algorithm == RouteService.Algorithm.ALT) {
+			Landmarks lm = service.landmarks(profile);
+			System.out.printf("%d landmarks (%s) computed in %dms.%n", lm.count(),
+					profile, lm.nanos() / 1000000);
+		}
+		System.out.printf("Loaded %d nodes in %.1fs, routing with %s (%s) on %d threads.%n",
+				network.size(), (System.nanoTime() - begin) / 1e9, algorithm,
+				profile, threads);
+
+		begin = System.nanoTime();
+		Totals totals;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try (BufferedReader in = Files.newBufferedReader(new File(args[1]).toPath(),
+				StandardCharsets.UTF_8);
+				BufferedWriter out = Files.newBufferedWriter(new File(args[2]).toPath(),
+						StandardCharsets.UTF_8)) {
+			out.write("origin\tdestination\tstatus\tdistance\tcost\tsettled\tlatency_ms\troads\n");
+			totals = run(service, algorithm, profile, in, out, pool,
+					threads * CHUNKS_PER_THREAD);
+		} finally {
+			pool.shutdown();
+		}
+		double seconds = (System.nanoTime() - begin) / 1e9;
+		System.out.printf("Routed %d pairs in %.1fs (%.0f/s): %d found, %d with no route,"
+				+ " %d with unknown nodes, %d bad lines skipped.%n", totals.pairs,
+				seconds, totals.pairs / seconds, totals.found, totals.unreachable,
+				totals.unknown, totals.skipped);
+		if (totals.found > 0)
+			System.out.printf("Latency: %.3fms on average, %.3fms at most.%n",
+					totals.nanos / 1e6 / totals.found, totals.maxNanos / 1e6);
+	}
+
+	/**
+	 * Reads pairs a chunk at a time and hands each chunk to the pool, writing
+	 * out the oldest chunk's results whenever too many are waiting.
+	 */
+	private static Totals run(RouteService service, RouteService.Algorithm algorithm,
+			RouteProfile profile, BufferedReader in, Writer out, ExecutorService pool,
+			int window) throws Exception {
+		Totals totals = new Totals();
+		ArrayDeque<Future<Chunk>> waiting = new ArrayDeque<Future<Chunk>>();
+		int lineNumber = 0;
+		boolean more = true;
+		while (more) {
+			int[] pairs = new int[2 * CHUNK];
+			int count = 0;
+			String line;
+			while (count < CHUNK && (line = in.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] ids = line.split("\\s+");
+				try {
+					if (ids.length != 2)
+						throw new NumberFormatException();
+					pairs[2 * count] = Integer.parseInt(ids[0]);
+					pairs[2 * count + 1] = Integer.parseInt(ids[1]);
+					count++;
+				} catch (NumberFormatException e) {
+					System.err.println("Skipping line " + lineNumber + ": " + line);
+					totals.skipped++;
+				}
+			}
+			more = count == CHUNK;
+			if (count == 0)
+				break;
+			int size = count;
+			waiting.add(pool.submit(() -> route(service, algorithm, profile, pairs, size)));
+			if (waiting.size() >= window)
+				write(waiting.poll().get(), out, totals);
+		}
+		while (!waiting.isEmpty())
+			write(waiting.poll().get(), out, totals);
+		return totals;
+	}
+
+	/**
+	 * Routes a chunk of pairs, formatting the results as output lines.
+	 */
+	private static Chunk route(RouteService service, RouteService.Algorithm algorithm,
+			RouteProfile profile, int[] pairs, int count) {
+		Chunk chunk = new Chunk();
+		StringBuilder text = chunk.text;
+		for (int i = 0; i < count; i++) {
+			int origin = pairs[2 * i], destination = pairs[2 * i + 1];
+			text.append(origin).append('\t').append(destination).append('\t');
+			RouteResult result;
+			try {
+				result = service.route(origin, destination, algorithm, profile);
+			} catch (IllegalArgumentException e) {
+				chunk.unknown++;
+				text.append("unknown node\t\t\t\t\t\n");
+				continue;
+			}
+			if (!result.found) {
+				chunk.unreachable++;
+				text.append("no route\t\t\t").append(result.settledNodes).append('\t')
+						.append(String.format(Locale.ROOT, "%.3f", result.nanos / 1e6)).append("\t\n");
+				continue;
+			}
+			chunk.found++;
+			chunk.nanos += result.nanos;
+			chunk.maxNanos = Math.max(chunk.maxNanos, result.nanos);
+			text.append("ok\t").append(String.format(Locale.ROOT, "%.4f", result.distance)).append('\t')
+					.append(String.format(Locale.ROOT, "%.4f", result.cost)).append('\t')
+					.append(result.settledNodes).append('\t')
+					.append(String.format(Locale.ROOT, "%.3f", result.nanos / 1e6)).append('\t');
+			String separator = "";
+			for (Map.Entry<String, Double> road : result.roadLengths.entrySet()) {
+				text.append(separator);
+				appendEscaped(text, road.getKey());
+				text.append(':').append(String.format(Locale.ROOT, "%.4f", road.getValue()));
+				separator = ";";
+			}
+			text.append('\n');
+		}
+		return chunk;
+	}
+
+	/**
+	 * Appends a road name, with a backslash before anything that would be
+	 * taken for a separator.
+	 */
+	static void appendEscaped(StringBuilder text, String name) {
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			switch (c) {
+			case '\\':
+			case ':':
+			case ';':
+				text.append('\\').append(c);
+				break;
+			case '\t':
+				text.append("\\t");
+				break;
+			case '\n':
+				text.append("\\n");
+				break;
+			case '\r':
+				text.append("\\r");
+				break;
+			default:
+				text.append(c);
+			}
+		}
+	}
+
+	private static void write(Chunk chunk, Writer out, Totals totals) throws IOException {
+		out.append(chunk.text);
+		totals.found += chunk.found;
+		totals.unreachable += chunk.unreachable;
+		totals.unknown += chunk.unknown;
+		totals.pairs += chunk.found + chunk.unreachable + chunk.unknown;
+		totals.nanos += chunk.nanos;
+		totals.maxNanos = Math.max(totals.maxNanos, chunk.maxNanos);
+	}
+
+	/**
+	 * The output lines for a chunk of pairs, and its counts.
+	 */
+	private static class Chunk {
+		final StringBuilder text = new StringBuilder();
+		int found, unreachable, unknown;
+		long nanos, maxNanos;
+	}
+
+	private static class Totals {
+		long pairs, found, unreachable, unknown, skipped;
+		long nanos, maxNanos;
+	}
+}
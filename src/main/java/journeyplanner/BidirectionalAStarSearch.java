@@ -0,0 +1,154 @@
+package journeyplanner;
+
+/**
+ * Bidirectional A* over a RoadNetwork: a forward search from the start along
+ * out-edges and a backward search from the target along in-edges, run
+ * alternately until they meet.
+ *
+ * Both searches use the average potential p(v) = (dist(v, target) -
+ * dist(start, v)) / 2, scaled by the least cost per km of the profile,
+ * forwards as +p and backwards as -p. This keeps the two potentials
+ * consistent with each other, so the searches are really one bidirectional
+ * Dijkstra on reduced edge costs, and can stop as soon as the two smallest
+ * fringe keys add up to at least the best path seen so far.
+ */
+public class BidirectionalAStarSearch implements PathSearch {
+	private final RoadNetwork graph;
+	private final RouteProfile profile;
+	private final double costPerKm;
+	private final SearchState forward, backward;
+	private final IndexedHeap forwardFringe, backwardFringe;
+
+	private int start = -1, target = -1;
+	private int avoidedOneWays = 0;
+	// the best path found so far, and the node where its two halves meet.
+	private double best;
+	private int meeting;
+
+	public BidirectionalAStarSearch(RoadNetwork graph, RouteProfile profile) {
+		this.graph = graph;
+		this.profile = profile;
+		this.costPerKm = graph.minCostPerKm(profile);
+		this.forward = new SearchState(graph.size());
+		this.backward = new SearchState(graph.size());
+		this.forwardFringe = new IndexedHeap(graph.size());
+		this.backwardFringe = new IndexedHeap(graph.size());
+	}
+
+	@Override
+	public boolean search(int start, int target) {
+		this.start = start;
+		this.target = target;
+		avoidedOneWays = 0;
+		best = Double.POSITIVE_INFINITY;
+		meeting = -1;
+		forward.reset();
+		backward.reset();
+		forwardFringe.clear();
+		backwardFringe.clear();
+
+		forward.reach(start, 0, -1, -1);
+		forwardFringe.insertOrDecrease(start, potential(start));
+		backward.reach(target, 0, -1, -1);
+		backwardFringe.insertOrDecrease(target, -potential(target));
+		if (start == target) {
+			best = 0;
+			meeting = start;
+		}
+
+		while (!forwardFringe.isEmpty() && !backwardFringe.isEmpty()) {
+			if (forwardFringe.minKey() + backwardFringe.minKey() >= best)
+				break;
+			// expand whichever side has the smaller fringe.
+			if (forwardFringe.size() <= backwardFringe.size())
+				expandForward();
+			else
+				expandBackward();
+		}
+		return meeting >= 0;
+	}
+
+	private double potential(int v) {
+		return (graph.distance(v, target) - graph.distance(start, v)) / 2
+				* costPerKm;
+	}
+
+	private void expandForward() {
+		int node = forwardFringe.poll();
+		forward.settle(node);
+		avoidedOneWays += graph.blockedOneWays(node);
+		double cost = forward.cost(node);
+		for (int e = graph.firstOut(node); e < graph.endOut(node); e++) {
+			int neighbour = graph.outTarget(e);
+			if (forward.isSettled(neighbour))
+				continue;
+			double g = cost + graph.outCost(profile, e);
+			if (g < forward.cost(neighbour)) {
+				forward.reach(neighbour, g, node, e);
+				forwardFringe.insertOrDecrease(neighbour, g + potential(neighbour));
+				double through = g + backward.cost(neighbour);
+				if (through < best) {
+					best = through;
+					meeting = neighbour;
+				}
+			}
+		}
+	}
+
+	private void expandBackward() {
+		int node = backwardFringe.poll();
+		backward.settle(node);
+		double cost = backward.cost(node);
+		for (int e = graph.firstIn(node); e < graph.endIn(node); e++) {
+			int neighbour = graph.inSource(e);
+			if (backward.isSettled(neighbour))
+				continue;
+			double g = cost + graph.inCost(profile, e);
+			if (g < backward.cost(neighbour)) {
+				backward.reach(neighbour, g, node, e);
+				backwardFringe.insertOrDecrease(neighbour, g - potential(neighbour));
+				double through = g + forward.cost(neighbour);
+				if (through < best) {
+					best = through;
+					meeting = neighbour;
+				}
+			}
+		}
+	}
+
+	@Override
+	public double cost() {
+		return best;
+	}
+
+	@Override
+	public int settledCount() {
+		return forward.settledCount() + backward.settledCount();
+	}
+
+	@Override
+	public int avoidedOneWays() {
+		return avoidedOneWays;
+	}
+
+	@Override
+	public int[] path() {
+		if (meeting < 0)
+			return new int[0];
+		int forwardLength = 0, length = 0;
+		for (int node = meeting; node != start; node = forward.parentNode(node))
+			forwardLength++;
+		for (int node = meeting; node != target; node = backward.parentNode(node))
+			length++;
+		int[] path = new int[forwardLength + length];
+		// the forward half leads backwards from the meeting node, so fill it
+		// from the middle out.
+		int i = forwardLength;
+		for (int node = meeting; node != start; node = forward.parentNode(node))
+			path[--i] = graph.outSegment(forward.parentEdge(node));
+		i = forwardLength;
+		for (int node = meeting; node != target; node = backward.parentNode(node))
+			path[i++] = graph.inSegment(backward.parentEdge(node));
+		return path;
+	}
+}
@@ -0,0 +1,424 @@
+package journeyplanner;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A compressed-sparse-row (CSR) form of the road graph, built once after the
+ * Graph has been parsed. Every Node and Segment is given a dense index, and
+ * the adjacency is stored in flat primitive arrays so that searches don't have
+ * to chase through the HashSets and ArrayLists hanging off each Node.
+ *
+ * Three adjacencies are kept. The out-edges of a node are the ways you can
+ * leave it, and the in-edges are the ways you can arrive at it; one-way roads
+ * only appear in their direction of travel in these. The undirected adjacency
+ * ignores one-way restrictions and is what the articulation point search
+ * walks. The edges of node v are the indices from first(v) (inclusive) to
+ * first(v + 1) (exclusive) of the relevant arrays.
+ *
+ * The cost of every directed edge under every RouteProfile is worked out up
+ * front as well, so searches just read it from an array. Edges a profile
+ * can't use cost infinity.
+ *
+ * This is the on-heap RoadNetwork; see OffHeapGraph for the other.
+ */
+public class CompactGraph implements RoadNetwork {
+	private final Node[] nodes;
+	private final Segment[] segments;
+	private final double[] xs, ys;
+
+	private final int[] outOffsets, outTargets, outSegments;
+	private final double[] outLengths;
+
+	private final int[] inOffsets, inSources, inSegments;
+	private final double[] inLengths;
+
+	private final int[] adjOffsets, adjTargets, adjSegments;
+
+	// edge costs by profile then edge, and the least each profile can cost
+	// per km of straight line, for heuristics.
+	private final double[][] outCosts, inCosts;
+	private final double[] minCostPerKm;
+
+	// how many one-way segments end at each node, ie. the segments that can't
+	// be used to leave it.
+	private final int[] blockedOneWays;
+	// node indices in order of node ID, for looking nodes up by ID.
+	private final int[] byID;
+
+	public CompactGraph(Collection<Node> nodeCollection,
+			Collection<Segment> segmentCollection) {
+		this(nodeCollection.toArray(new Node[0]),
+				segmentCollection.toArray(new Segment[0]), null);
+	}
+
+	/**
+	 * Makes a CompactGraph over the given nodes and segments, which take
+	 * their indices from their positions in the arrays. The adjacency arrays
+	 * are the ones adjacency() returns for the same nodes and segments, eg.
+	 * read back from a GraphSnapshot; if they're null they are worked out.
+	 */
+	CompactGraph(Node[] nodes, Segment[] segments, int[][] adjacency) {
+		int n = nodes.length;
+		this.nodes = nodes;
+		this.segments = segments;
+		xs = new double[n];
+		ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			nodes[i].index = i;
+			xs[i] = nodes[i].location.x;
+			ys[i] = nodes[i].location.y;
+		}
+		for (int j = 0; j < segments.length; j++)
+			segments[j].index = j;
+		int[] ids = new int[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = nodes[i].nodeID;
+		byID = orderByID(ids);
+
+		if (adjacency == null) {
+			int[] starts = new int[segments.length], ends = new int[segments.length];
+			boolean[] oneway = new boolean[segments.length];
+			for (int j = 0; j < segments.length; j++) {
+				starts[j] = segments[j].start.index;
+				ends[j] = segments[j].end.index;
+				oneway[j] = segments[j].road.oneway != 0;
+			}
+			adjacency = buildAdjacency(n, starts, ends, oneway);
+		}
+		outOffsets = adjacency[0];
+		outTargets = adjacency[1];
+		outSegments = adjacency[2];
+		inOffsets = adjacency[3];
+		inSources = adjacency[4];
+		inSegments = adjacency[5];
+		adjOffsets = adjacency[6];
+		adjTargets = adjacency[7];
+		adjSegments = adjacency[8];
+
+		// the cost of each segment is worked out once, in segment order, and
+		// then copied to the edges, rather than going back to the Segment
+		// objects for every edge.
+		double[] segmentCosts = new double[segments.length];
+		for (int j = 0; j < segments.length; j++)
+			segmentCosts[j] = segments[j].length;
+		outLengths = edgeCosts(segmentCosts, outSegments);
+		inLengths = edgeCosts(segmentCosts, inSegments);
+
+		blockedOneWays = new int[n];
+		for (Segment s : segments)
+			if (s.road.oneway != 0 && s.start != s.end)
+				blockedOneWays[s.end.index]++;
+
+		RouteProfile[] profiles = RouteProfile.values();
+		outCosts = new double[profiles.length][];
+		inCosts = new double[profiles.length][];
+		minCostPerKm = new double[profiles.length];
+		for (RouteProfile profile : profiles) {
+			int p = profile.ordinal();
+			if (profile == RouteProfile.SHORTEST) {
+				outCosts[p] = outLengths;
+				inCosts[p] = inLengths;
+				minCostPerKm[p] = 1;
+				continue;
+			}
+			double maxSpeed = 0;
+			for (int j = 0; j < segments.length; j++) {
+				Segment s = segments[j];
+				segmentCosts[j] = profile.cost(s);
+				if (profile.allows(s.road))
+					maxSpeed = Math.max(maxSpeed, profile.speed(s.road));
+			}
+			outCosts[p] = edgeCosts(segmentCosts, outSegments);
+			inCosts[p] = edgeCosts(segmentCosts, inSegments);
+			minCostPerKm[p] = profile.timed ? 1 / Math.max(maxSpeed, 1) : 1;
+		}
+	}
+
+	private static double[] edgeCosts(double[] segmentCosts, int[] edgeSegments) {
+		double[] costs = new double[edgeSegments.length];
+		for (int e = 0; e < costs.length; e++)
+			costs[e] = segmentCosts[edgeSegments[e]];
+		return costs;
+	}
+
+	/**
+	 * Works out the out, in and undirected adjacency of n nodes and the
+	 * segments with the given start and end node indices, as the offsets,
+	 * ends and segments arrays of each in turn. Segments on one-way roads
+	 * only go from start to end.
+	 */
+	static int[][] buildAdjacency(int n, int[] starts, int[] ends,
+			boolean[] oneway) {
+		int[] outOffsets = new int[n + 1];
+		int[] inOffsets = new int[n + 1];
+		int[] adjOffsets = new int[n + 1];
+
+		// first pass: count the degree of every node.
+		for (int s = 0; s < starts.length; s++) {
+			int a = starts[s], b = ends[s];
+			outOffsets[a + 1]++;
+			inOffsets[b + 1]++;
+			if (!oneway[s]) {
+				outOffsets[b + 1]++;
+				inOffsets[a + 1]++;
+			}
+			// self loops don't connect anything, so leave them out of the
+			// undirected adjacency.
+			if (a != b) {
+				adjOffsets[a + 1]++;
+				adjOffsets[b + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			outOffsets[v + 1] += outOffsets[v];
+			inOffsets[v + 1] += inOffsets[v];
+			adjOffsets[v + 1] += adjOffsets[v];
+		}
+
+		int[] outTargets = new int[outOffsets[n]];
+		int[] outSegments = new int[outOffsets[n]];
+		int[] inSources = new int[inOffsets[n]];
+		int[] inSegments = new int[inOffsets[n]];
+		int[] adjTargets = new int[adjOffsets[n]];
+		int[] adjSegments = new int[adjOffsets[n]];
+
+		// second pass: fill in the edges, using a cursor per node.
+		int[] outNext = new int[n], inNext = new int[n], adjNext = new int[n];
+		System.arraycopy(outOffsets, 0, outNext, 0, n);
+		System.arraycopy(inOffsets, 0, inNext, 0, n);
+		System.arraycopy(adjOffsets, 0, adjNext, 0, n);
+		for (int s = 0; s < starts.length; s++) {
+			int a = starts[s], b = ends[s];
+			addEdge(outNext, outTargets, outSegments, a, b, s);
+			addEdge(inNext, inSources, inSegments, b, a, s);
+			if (!oneway[s]) {
+				addEdge(outNext, outTargets, outSegments, b, a, s);
+				addEdge(inNext, inSources, inSegments, a, b, s);
+			}
+			if (a != b) {
+				addEdge(adjNext, adjTargets, adjSegments, a, b, s);
+				addEdge(adjNext, adjTargets, adjSegments, b, a, s);
+			}
+		}
+		return new int[][] { outOffsets, outTargets, outSegments, inOffsets,
+				inSources, inSegments, adjOffsets, adjTargets, adjSegments };
+	}
+
+	private static void addEdge(int[] next, int[] ends, int[] segs, int from,
+			int to, int s) {
+		int e = next[from]++;
+		ends[e] = to;
+		segs[e] = s;
+	}
+
+	/**
+	 * Returns the indices 0..ids.length-1 in order of the IDs at those
+	 * indices.
+	 */
+	static int[] orderByID(int[] ids) {
+		// the ID goes in the top half, so sorting the pairs sorts by ID.
+		long[] pairs = new long[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			pairs[i] = (long) ids[i] << 32 | i;
+		Arrays.sort(pairs);
+		int[] order = new int[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			order[i] = (int) pairs[i];
+		return order;
+	}
+
+	/**
+	 * The adjacency arrays, in the order the package constructor takes them.
+	 * These are the real arrays, not copies, so don't change them.
+	 */
+	int[][] adjacency() {
+		return new int[][] { outOffsets, outTargets, outSegments, inOffsets,
+				inSources, inSegments, adjOffsets, adjTargets, adjSegments };
+	}
+
+	@Override
+	public int size() {
+		return nodes.length;
+	}
+
+	public Node node(int v) {
+		return nodes[v];
+	}
+
+	public Segment segment(int s) {
+		return segments[s];
+	}
+
+	@Override
+	public int segmentCount() {
+		return segments.length;
+	}
+
+	@Override
+	public int nodeID(int v) {
+		return nodes[v].nodeID;
+	}
+
+	@Override
+	public int nodeIndex(int nodeID) {
+		int low = 0, high = byID.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = nodes[byID[middle]].nodeID;
+			if (id < nodeID)
+				low = middle + 1;
+			else if (id > nodeID)
+				high = middle - 1;
+			else
+				return byID[middle];
+		}
+		return -1;
+	}
+
+	/**
+	 * Node indices in order of node ID. These are the real array, not a
+	 * copy, so don't change it.
+	 */
+	int[] byID() {
+		return byID;
+	}
+
+	@Override
+	public double x(int v) {
+		return xs[v];
+	}
+
+	@Override
+	public double y(int v) {
+		return ys[v];
+	}
+
+	@Override
+	public double distance(int u, int v) {
+		return Math.hypot(xs[u] - xs[v], ys[u] - ys[v]);
+	}
+
+	@Override
+	public double minCostPerKm(RouteProfile profile) {
+		return minCostPerKm[profile.ordinal()];
+	}
+
+	@Override
+	public int blockedOneWays(int v) {
+		return blockedOneWays[v];
+	}
+
+	// ---- segments ----
+
+	@Override
+	public double segmentLength(int s) {
+		return segments[s].length;
+	}
+
+	@Override
+	public String roadName(int s) {
+		return segments[s].roadName;
+	}
+
+	@Override
+	public int pointCount(int s) {
+		return segments[s].points.length;
+	}
+
+	@Override
+	public double pointX(int s, int i) {
+		return segments[s].points[i].x;
+	}
+
+	@Override
+	public double pointY(int s, int i) {
+		return segments[s].points[i].y;
+	}
+
+	// ---- out edges ----
+
+	@Override
+	public int firstOut(int v) {
+		return outOffsets[v];
+	}
+
+	@Override
+	public int endOut(int v) {
+		return outOffsets[v + 1];
+	}
+
+	@Override
+	public int outTarget(int e) {
+		return outTargets[e];
+	}
+
+	@Override
+	public int outSegment(int e) {
+		return outSegments[e];
+	}
+
+	@Override
+	public double outLength(int e) {
+		return outLengths[e];
+	}
+
+	@Override
+	public double outCost(RouteProfile profile, int e) {
+		return outCosts[profile.ordinal()][e];
+	}
+
+	// ---- in edges ----
+
+	@Override
+	public int firstIn(int v) {
+		return inOffsets[v];
+	}
+
+	@Override
+	public int endIn(int v) {
+		return inOffsets[v + 1];
+	}
+
+	@Override
+	public int inSource(int e) {
+		return inSources[e];
+	}
+
+	@Override
+	public int inSegment(int e) {
+		return inSegments[e];
+	}
+
+	@Override
+	public double inLength(int e) {
+		return inLengths[e];
+	}
+
+	@Override
+	public double inCost(RouteProfile profile, int e) {
+		return inCosts[profile.ordinal()][e];
+	}
+
+	// ---- undirected edges ----
+
+	@Override
+	public int firstAdj(int v) {
+		return adjOffsets[v];
+	}
+
+	@Override
+	public int endAdj(int v) {
+		return adjOffsets[v + 1];
+	}
+
+	@Override
+	public int adjTarget(int e) {
+		return adjTargets[e];
+	}
+
+	@Override
+	public int adjSegment(int e) {
+		return adjSegments[e];
+	}
+}
@@ -0,0 +1,438 @@
+package journeyplanner;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The preprocessed form of a RoadNetwork for Contraction Hierarchies routing.
+ *
+ * Nodes are contracted one at a time, least important first. Contracting a
+ * node removes it from the remaining graph, adding a shortcut u -> w for every
+ * pair of its neighbours whose shortest path ran through it (unless a witness
+ * search finds another path that is no longer). The order is chosen greedily
+ * by edge difference (shortcuts added minus edges removed), the number of
+ * neighbours already contracted and how deep in the hierarchy the node would
+ * be. A node's neighbours have their priorities worked out again whenever it
+ * is contracted, and every node's is checked again before it's contracted.
+ * Because shortcuts are only added along directed in -> out pairs, one-way
+ * roads stay one-way.
+ *
+ * Once every node is contracted, the edges that lead upwards in the order are
+ * stored in two CSR arrays: forward edges by their lower end, and backward
+ * edges (followed from target to source) by their lower end. A query is then
+ * a bidirectional Dijkstra that only ever goes up, see
+ * ContractionHierarchySearch. Every shortcut remembers the two edges it
+ * replaced, so a path can be unpacked back into the original segments.
+ *
+ * A hierarchy is built for one RouteProfile, and edges the profile can't use
+ * are left out. Instances are immutable once built, and can be shared between threads.
+ */
+public class ContractionHierarchy {
+	// how many edges long a witness path may be, when working out priorities
+	// and when actually contracting. longer paths aren't looked for, and a
+	// shortcut is added anyway. this only affects the number of shortcuts,
+	// never the correctness of queries. priorities are only estimates, and
+	// are worked out far more often, so they look less far.
+	private static final int SIMULATION_HOP_LIMIT = 3, CONTRACTION_HOP_LIMIT = 5;
+
+	private final RoadNetwork graph;
+	private final RouteProfile profile;
+	private final int[] rank;
+
+	// every edge, original or shortcut. original edges have a segment and no
+	// children; shortcuts have two children and no segment.
+	private int edgeCount = 0, originalCount;
+	private int[] from, to, segment, firstChild, secondChild;
+	private double[] weight;
+
+	// the upward search graph.
+	private int[] upOffsets, upTargets, upEdges;
+	private double[] upWeights;
+	private int[] downOffsets, downSources, downEdges;
+	private double[] downWeights;
+
+	// scratch space used while contracting.
+	private IntList[] outEdges, inEdges;
+	private int[] contractedNeighbours, level;
+	// the neighbours of the node just contracted.
+	private boolean[] isNeighbour;
+	private SearchState witness;
+	private IndexedHeap witnessFringe;
+	// how many edges each node is from the start of the witness search, and
+	// which nodes it still has to settle.
+	private int[] hops;
+	private boolean[] isTarget;
+
+	// how long preprocessing took.
+	private final long nanos;
+
+	public ContractionHierarchy(RoadNetwork graph, RouteProfile profile) {
+		this.graph = graph;
+		this.profile = profile;
+		long begin = System.nanoTime();
+		int n = graph.size();
+		rank = new int[n];
+
+		int capacity = 16;
+		for (int v = 0; v < n; v++)
+			capacity += 2 * (graph.endOut(v) - graph.firstOut(v));
+		from = new int[capacity];
+		to = new int[capacity];
+		segment = new int[capacity];
+		firstChild = new int[capacity];
+		secondChild = new int[capacity];
+		weight = new double[capacity];
+
+		outEdges = new IntList[n];
+		inEdges = new IntList[n];
+		for (int v = 0; v < n; v++) {
+			outEdges[v] = new IntList();
+			inEdges[v] = new IntList();
+		}
+		for (int v = 0; v < n; v++)
+			for (int e = graph.firstOut(v); e < graph.endOut(v); e++)
+				if (graph.outTarget(e) != v
+						&& graph.outCost(profile, e) != Double.POSITIVE_INFINITY)
+					addEdge(v, graph.outTarget(e), graph.outCost(profile, e),
+							graph.outSegment(e), -1, -1);
+		originalCount = edgeCount;
+
+		contract();
+		buildSearchGraph();
+
+		// the scratch space isn't needed for queries.
+		outEdges = inEdges = null;
+		contractedNeighbours = level = hops = null;
+		isNeighbour = isTarget = null;
+		witness = null;
+		witnessFringe = null;
+		nanos = System.nanoTime() - begin;
+	}
+
+	private void contract() {
+		int n = graph.size();
+		contractedNeighbours = new int[n];
+		level = new int[n];
+		witness = new SearchState(n);
+		witnessFringe = new IndexedHeap(n);
+		hops = new int[n];
+		isTarget = new boolean[n];
+		isNeighbour = new boolean[n];
+
+		IndexedHeap order = new IndexedHeap(n);
+		for (int v = 0; v < n; v++)
+			order.insertOrDecrease(v, priority(v));
+
+		int next = 0;
+		while (!order.isEmpty()) {
+			int v = order.poll();
+			// contracting other nodes may have changed the priority even if
+			// it isn't a neighbour, so check it again and put the node back
+			// if it is no longer the least important.
+			double current = priority(v);
+			if (!order.isEmpty() && current > order.minKey()) {
+				order.insertOrDecrease(v, current);
+				continue;
+			}
+			contractNode(v, true);
+			rank[v] = next++;
+
+			// take v out of the remaining graph, and update its neighbours.
+			IntList outs = outEdges[v], ins = inEdges[v];
+			for (int i = 0; i < outs.size; i++)
+				inEdges[to[outs.get(i)]].remove(outs.get(i));
+			for (int i = 0; i < ins.size; i++)
+				outEdges[from[ins.get(i)]].remove(ins.get(i));
+			for (int i = 0; i < outs.size; i++)
+				neighbourContracted(v, to[outs.get(i)]);
+			for (int i = 0; i < ins.size; i++)
+				neighbourContracted(v, from[ins.get(i)]);
+			for (int i = 0; i < outs.size; i++)
+				updatePriority(order, to[outs.get(i)]);
+			for (int i = 0; i < ins.size; i++)
+				updatePriority(order, from[ins.get(i)]);
+		}
+	}
+
+	private void neighbourContracted(int v, int neighbour) {
+		// a neighbour joined by several edges is only counted once.
+		if (isNeighbour[neighbour])
+			return;
+		isNeighbour[neighbour] = true;
+		contractedNeighbours[neighbour]++;
+		level[neighbour] = Math.max(level[neighbour], level[v] + 1);
+	}
+
+	private void updatePriority(IndexedHeap order, int neighbour) {
+		if (!isNeighbour[neighbour])
+			return;
+		isNeighbour[neighbour] = false;
+		order.update(neighbour, priority(neighbour));
+	}
+
+	private double priority(int v) {
+		int removed = outEdges[v].size + inEdges[v].size;
+		// shortcuts and depth matter most, as they're what slow queries down.
+		return 2 * (contractNode(v, false) - removed) + contractedNeighbours[v]
+				+ 2 * level[v];
+	}
+
+	/**
+	 * Works out which shortcuts contracting v needs, adding them if add is
+	 * true, and returns how many there are.
+	 */
+	private int contractNode(int v, boolean add) {
+		int shortcuts = 0;
+		IntList ins = inEdges[v], outs = outEdges[v];
+		for (int i = 0; i < ins.size; i++) {
+			int in = ins.get(i);
+			int u = from[in];
+
+			double limit = -1;
+			int targets = 0;
+			for (int j = 0; j < outs.size; j++) {
+				int out = outs.get(j);
+				int w = to[out];
+				if (w == u)
+					continue;
+				limit = Math.max(limit, weight[in] + weight[out]);
+				if (!isTarget[w]) {
+					isTarget[w] = true;
+					targets++;
+				}
+			}
+			if (limit < 0)
+				continue;
+			witnessSearch(u, v, limit, targets,
+					add ? CONTRACTION_HOP_LIMIT : SIMULATION_HOP_LIMIT);
+			for (int j = 0; j < outs.size; j++)
+				isTarget[to[outs.get(j)]] = false;
+
+			for (int j = 0; j < outs.size; j++) {
+				int out = outs.get(j);
+				int w = to[out];
+				if (w == u)
+					continue;
+				double via = weight[in] + weight[out];
+				if (witness.cost(w) <= via)
+					continue;
+				shortcuts++;
+				if (add)
+					addEdge(u, w, via, -1, in, out);
+			}
+		}
+		return shortcuts;
+	}
+
+	/**
+	 * Runs a Dijkstra search from u over the remaining graph without going
+	 * through v, until it has settled all the given number of targets, gone
+	 * past the given cost limit, or run out of paths of up to hopLimit edges.
+	 */
+	private void witnessSearch(int u, int v, double limit, int targets,
+			int hopLimit) {
+		witness.reset();
+		witnessFringe.clear();
+		witness.reach(u, 0, -1, -1);
+		hops[u] = 0;
+		witnessFringe.insertOrDecrease(u, 0);
+		while (!witnessFringe.isEmpty() && targets > 0) {
+			int node = witnessFringe.poll();
+			witness.settle(node);
+			double cost = witness.cost(node);
+			if (cost > limit)
+				break;
+			if (isTarget[node])
+				targets--;
+			if (hops[node] == hopLimit)
+				continue;
+			IntList outs = outEdges[node];
+			for (int i = 0; i < outs.size; i++) {
+				int e = outs.get(i);
+				int w = to[e];
+				if (w == v || witness.isSettled(w))
+					continue;
+				double g = cost + weight[e];
+				if (g < witness.cost(w)) {
+					witness.reach(w, g, node, e);
+					hops[w] = hops[node] + 1;
+					witnessFringe.insertOrDecrease(w, g);
+				}
+			}
+		}
+	}
+
+	private void addEdge(int u, int w, double length, int seg, int first,
+			int second) {
+		if (edgeCount == from.length) {
+			int capacity = edgeCount * 2;
+			from = Arrays.copyOf(from, capacity);
+			to = Arrays.copyOf(to, capacity);
+			segment = Arrays.copyOf(segment, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			secondChild = Arrays.copyOf(secondChild, capacity);
+			weight = Arrays.copyOf(weight, capacity);
+		}
+		int e = edgeCount++;
+		from[e] = u;
+		to[e] = w;
+		weight[e] = length;
+		segment[e] = seg;
+		firstChild[e] = first;
+		secondChild[e] = second;
+		outEdges[u].add(e);
+		inEdges[w].add(e);
+	}
+
+	private void buildSearchGraph() {
+		int n = graph.size();
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			if (rank[from[e]] < rank[to[e]])
+				upOffsets[from[e] + 1]++;
+			else
+				downOffsets[to[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			upOffsets[v + 1] += upOffsets[v];
+			downOffsets[v + 1] += downOffsets[v];
+		}
+
+		upTargets = new int[upOffsets[n]];
+		upEdges = new int[upOffsets[n]];
+		upWeights = new double[upOffsets[n]];
+		downSources = new int[downOffsets[n]];
+		downEdges = new int[downOffsets[n]];
+		downWeights = new double[downOffsets[n]];
+		int[] upNext = Arrays.copyOf(upOffsets, n);
+		int[] downNext = Arrays.copyOf(downOffsets, n);
+		for (int e = 0; e < edgeCount; e++) {
+			if (rank[from[e]] < rank[to[e]]) {
+				int i = upNext[from[e]]++;
+				upTargets[i] = to[e];
+				upEdges[i] = e;
+				upWeights[i] = weight[e];
+			} else {
+				int i = downNext[to[e]]++;
+				downSources[i] = from[e];
+				downEdges[i] = e;
+				downWeights[i] = weight[e];
+			}
+		}
+	}
+
+	public RoadNetwork graph() {
+		return graph;
+	}
+
+	public RouteProfile profile() {
+		return profile;
+	}
+
+	public int size() {
+		return rank.length;
+	}
+
+	/**
+	 * How many shortcuts preprocessing added.
+	 */
+	public int shortcutCount() {
+		return edgeCount - originalCount;
+	}
+
+	/**
+	 * How long preprocessing took, in nanoseconds.
+	 */
+	public long nanos() {
+		return nanos;
+	}
+
+	// ---- forward upward edges ----
+
+	public int firstUp(int v) {
+		return upOffsets[v];
+	}
+
+	public int endUp(int v) {
+		return upOffsets[v + 1];
+	}
+
+	public int upTarget(int i) {
+		return upTargets[i];
+	}
+
+	public double upWeight(int i) {
+		return upWeights[i];
+	}
+
+	public int upEdge(int i) {
+		return upEdges[i];
+	}
+
+	// ---- backward upward edges ----
+
+	public int firstDown(int v) {
+		return downOffsets[v];
+	}
+
+	public int endDown(int v) {
+		return downOffsets[v + 1];
+	}
+
+	public int downSource(int i) {
+		return downSources[i];
+	}
+
+	public double downWeight(int i) {
+		return downWeights[i];
+	}
+
+	public int downEdge(int i) {
+		return downEdges[i];
+	}
+
+	/**
+	 * Unpacks an edge into the original segments it stands for, passing
+	 * their indices to the visitor in order.
+	 */
+	public void unpack(int edge, IntConsumer visitor) {
+		if (segment[edge] >= 0) {
+			visitor.accept(segment[edge]);
+			return;
+		}
+		unpack(firstChild[edge], visitor);
+		unpack(secondChild[edge], visitor);
+	}
+
+	/**
+	 * A growable list of ints, for the per-node edge lists used while
+	 * contracting.
+	 */
+	private static class IntList {
+		int[] items = new int[4];
+		int size = 0;
+
+		void add(int item) {
+			if (size == items.length)
+				items = Arrays.copyOf(items, size * 2);
+			items[size++] = item;
+		}
+
+		int get(int i) {
+			return items[i];
+		}
+
+		/**
+		 * Removes the given item, moving the last one into its place.
+		 */
+		void remove(int item) {
+			for (int i = 0; i < size; i++) {
+				if (items[i] == item) {
+					items[i] = items[--size];
+					return;
+				}
+			}
+		}
+	}
+}
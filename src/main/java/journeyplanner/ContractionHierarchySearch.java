@@ -0,0 +1,139 @@
+package journeyplanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Answers queries on a ContractionHierarchy. A forward search from the start
+ * and a backward search from the target each only follow edges that lead up
+ * the contraction order, and the shortest path is the best meeting point of
+ * the two. Each side stops once the smallest key on its fringe is no better
+ * than the best path found. The shared hierarchy is read-only, so any number
+ * of these can run over it at once; each instance has its own scratch state.
+ */
+public class ContractionHierarchySearch implements PathSearch {
+	private final ContractionHierarchy hierarchy;
+	private final SearchState forward, backward;
+	private final IndexedHeap forwardFringe, backwardFringe;
+
+	private int start = -1, target = -1;
+	private int avoidedOneWays = 0;
+	private double best;
+	private int meeting;
+
+	public ContractionHierarchySearch(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		this.forward = new SearchState(hierarchy.size());
+		this.backward = new SearchState(hierarchy.size());
+		this.forwardFringe = new IndexedHeap(hierarchy.size());
+		this.backwardFringe = new IndexedHeap(hierarchy.size());
+	}
+
+	@Override
+	public boolean search(int start, int target) {
+		this.start = start;
+		this.target = target;
+		avoidedOneWays = 0;
+		best = Double.POSITIVE_INFINITY;
+		meeting = -1;
+		forward.reset();
+		backward.reset();
+		forwardFringe.clear();
+		backwardFringe.clear();
+
+		forward.reach(start, 0, -1, -1);
+		forwardFringe.insertOrDecrease(start, 0);
+		backward.reach(target, 0, -1, -1);
+		backwardFringe.insertOrDecrease(target, 0);
+
+		boolean forwards = true;
+		while (true) {
+			boolean forwardDone = forwardFringe.minKey() >= best;
+			boolean backwardDone = backwardFringe.minKey() >= best;
+			if (forwardDone && backwardDone)
+				break;
+			// alternate between the two sides while both still have work.
+			if (forwardDone)
+				forwards = false;
+			else if (backwardDone)
+				forwards = true;
+			if (forwards)
+				expandForward();
+			else
+				expandBackward();
+			forwards = !forwards;
+		}
+		return meeting >= 0;
+	}
+
+	private void expandForward() {
+		int node = forwardFringe.poll();
+		forward.settle(node);
+		RoadNetwork graph = hierarchy.graph();
+		avoidedOneWays += graph.blockedOneWays(node);
+		double cost = forward.cost(node);
+		if (cost + backward.cost(node) < best) {
+			best = cost + backward.cost(node);
+			meeting = node;
+		}
+		for (int i = hierarchy.firstUp(node); i < hierarchy.endUp(node); i++) {
+			int next = hierarchy.upTarget(i);
+			double g = cost + hierarchy.upWeight(i);
+			if (g < forward.cost(next)) {
+				forward.reach(next, g, node, hierarchy.upEdge(i));
+				forwardFringe.insertOrDecrease(next, g);
+			}
+		}
+	}
+
+	private void expandBackward() {
+		int node = backwardFringe.poll();
+		backward.settle(node);
+		double cost = backward.cost(node);
+		if (cost + forward.cost(node) < best) {
+			best = cost + forward.cost(node);
+			meeting = node;
+		}
+		for (int i = hierarchy.firstDown(node); i < hierarchy.endDown(node); i++) {
+			int next = hierarchy.downSource(i);
+			double g = cost + hierarchy.downWeight(i);
+			if (g < backward.cost(next)) {
+				backward.reach(next, g, node, hierarchy.downEdge(i));
+				backwardFringe.insertOrDecrease(next, g);
+			}
+		}
+	}
+
+	@Override
+	public double cost() {
+		return best;
+	}
+
+	@Override
+	public int settledCount() {
+		return forward.settledCount() + backward.settledCount();
+	}
+
+	@Override
+	public int avoidedOneWays() {
+		return avoidedOneWays;
+	}
+
+	@Override
+	public int[] path() {
+		if (meeting < 0)
+			return new int[0];
+		IntStream.Builder path = IntStream.builder();
+		// collect the hierarchy edges of the forward half, which lead
+		// backwards from the meeting node, then unpack them in order.
+		List<Integer> edges = new ArrayList<Integer>();
+		for (int node = meeting; node != start; node = forward.parentNode(node))
+			edges.add(forward.parentEdge(node));
+		for (int i = edges.size() - 1; i >= 0; i--)
+			hierarchy.unpack(edges.get(i), path);
+		for (int node = meeting; node != target; node = backward.parentNode(node))
+			hierarchy.unpack(backward.parentEdge(node), path);
+		return path.build().toArray();
+	}
+}
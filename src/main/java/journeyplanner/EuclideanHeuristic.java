@@ -0,0 +1,26 @@
+package journeyplanner;
+
+/**
+ * Estimates the remaining cost as the straight line distance to the target,
+ * at the least cost per km the profile allows.
+ */
+public class EuclideanHeuristic implements Heuristic {
+	private final RoadNetwork graph;
+	private final double costPerKm;
+	private int target;
+
+	public EuclideanHeuristic(RoadNetwork graph, RouteProfile profile) {
+		this.graph = graph;
+		this.costPerKm = graph.minCostPerKm(profile);
+	}
+
+	@Override
+	public void target(int target) {
+		this.target = target;
+	}
+
+	@Override
+	public double estimate(int node) {
+		return graph.distance(node, target) * costPerKm;
+	}
+}
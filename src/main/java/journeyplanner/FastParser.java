@@ -0,0 +1,312 @@
+package journeyplanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A faster drop-in for Parser's node and segment methods, for large maps. The
+ * file is memory mapped and cut into chunks at line breaks, and the chunks are
+ * tokenised in parallel by hand, without Strings, regexes or split(). The
+ * results are the same as Parser's: the same maps and sets, built from the
+ * lines in the same order, so later duplicates win in the same way.
+ *
+ * Segments can only be tokenised in parallel; the Segment objects themselves
+ * are made one at a time afterwards, because making one adds it to its Road
+ * and Nodes.
+ *
+ * Files are mapped in one piece, so they have to be under 2GB.
+ */
+public class FastParser {
+	// chunks are at least this many bytes, so small files aren't split up
+	// for nothing.
+	private static final int MIN_CHUNK = 1 << 16;
+
+	public static Map<Integer, Node> parseNodes(File nodes, Graph graph) {
+		MappedByteBuffer buffer = map(nodes);
+		List<List<Node>> chunks = inParallel(buffer, false, (cursor) -> {
+			List<Node> parsed = new ArrayList<>();
+			while (cursor.nextLine()) {
+				int nodeID = cursor.nextInt();
+				double lat = cursor.nextDouble();
+				double lon = cursor.nextDouble();
+				parsed.add(new Node(nodeID, lat, lon));
+			}
+			return parsed;
+		});
+
+		Map<Integer, Node> map = new HashMap<Integer, Node>();
+		for (List<Node> chunk : chunks)
+			for (Node node : chunk)
+				map.put(node.nodeID, node);
+		return map;
+	}
+
+	public static Collection<Segment> parseSegments(File segments, Graph graph) {
+		MappedByteBuffer buffer = map(segments);
+		List<SegmentLines> chunks = inParallel(buffer, true, (cursor) -> {
+			SegmentLines parsed = new SegmentLines();
+			while (cursor.nextLine()) {
+				int roadID = cursor.nextInt();
+				double length = cursor.nextDouble();
+				int node1ID = cursor.nextInt();
+				int node2ID = cursor.nextInt();
+				double[] coords = new double[8];
+				int count = 0;
+				while (cursor.hasNext()) {
+					if (count == coords.length)
+						coords = Arrays.copyOf(coords, count * 2);
+					coords[count++] = cursor.nextDouble();
+				}
+				parsed.add(roadID, length, node1ID, node2ID,
+						Arrays.copyOf(coords, count));
+			}
+			return parsed;
+		});
+
+		Set<Segment> set = new HashSet<Segment>();
+		for (SegmentLines chunk : chunks)
+			for (int i = 0; i < chunk.size; i++)
+				set.add(new Segment(graph, chunk.roadIDs[i], chunk.lengths[i],
+						chunk.node1IDs[i], chunk.node2IDs[i], chunk.coords[i]));
+		return set;
+	}
+
+	private static MappedByteBuffer map(File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new RuntimeException("file too large to map: " + file);
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new RuntimeException("file reading failed.");
+		}
+	}
+
+	/**
+	 * Cuts the buffer into line-aligned chunks, runs the parser over each in
+	 * parallel, and returns the results in file order. If there's a header,
+	 * the first line is skipped.
+	 */
+	private static <T> List<T> inParallel(MappedByteBuffer buffer,
+			boolean header, ChunkParser<T> parser) {
+		int size = buffer.limit();
+		int start = 0;
+		if (header)
+			start = Cursor.endOfLine(buffer, 0, size);
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		int count = Math.max(1, Math.min(threads * 4, (size - start) / MIN_CHUNK));
+		int[] bounds = new int[count + 1];
+		bounds[0] = start;
+		for (int c = 1; c < count; c++) {
+			int nominal = start + (int) ((long) (size - start) * c / count);
+			bounds[c] = Cursor.endOfLine(buffer, Math.max(nominal, bounds[c - 1]), size);
+		}
+		bounds[count] = size;
+
+		return IntStream.range(0, count).parallel()
+				.mapToObj(c -> parser.parse(new Cursor(buffer, bounds[c], bounds[c + 1])))
+				.collect(Collectors.toList());
+	}
+
+	private interface ChunkParser<T> {
+		T parse(Cursor cursor);
+	}
+
+	/**
+	 * The fields of every segment line in a chunk, in order.
+	 */
+	private static class SegmentLines {
+		int size = 0;
+		int[] roadIDs = new int[64], node1IDs = new int[64], node2IDs = new int[64];
+		double[] lengths = new double[64];
+		double[][] coords = new double[64][];
+
+		void add(int roadID, double length, int node1ID, int node2ID,
+				double[] points) {
+			if (size == roadIDs.length) {
+				roadIDs = Arrays.copyOf(roadIDs, size * 2);
+				node1IDs = Arrays.copyOf(node1IDs, size * 2);
+				node2IDs = Arrays.copyOf(node2IDs, size * 2);
+				lengths = Arrays.copyOf(lengths, size * 2);
+				coords = Arrays.copyOf(coords, size * 2);
+			}
+			roadIDs[size] = roadID;
+			lengths[size] = length;
+			node1IDs[size] = node1ID;
+			node2IDs[size] = node2ID;
+			coords[size++] = points;
+		}
+	}
+
+	/**
+	 * Reads tab separated fields from one chunk of the buffer, a line at a
+	 * time. Runs of tabs count as one separator, like Parser's split("[\t]+"),
+	 * and blank lines are skipped.
+	 */
+	private static class Cursor {
+		// powers of ten that are exact as doubles.
+		private static final double[] POWERS = new double[23];
+		static {
+			POWERS[0] = 1;
+			for (int i = 1; i < POWERS.length; i++)
+				POWERS[i] = POWERS[i - 1] * 10;
+		}
+
+		private final MappedByteBuffer buffer;
+		private final int end;
+		private int position;
+		// the end of the current line, not counting any \r.
+		private int lineEnd;
+
+		Cursor(MappedByteBuffer buffer, int start, int end) {
+			this.buffer = buffer;
+			this.position = start;
+			this.lineEnd = start;
+			this.end = end;
+		}
+
+		/**
+		 * Returns the index just past the next line break at or after from,
+		 * or limit if there isn't one.
+		 */
+		static int endOfLine(MappedByteBuffer buffer, int from, int limit) {
+			while (from < limit && buffer.get(from) != '\n')
+				from++;
+			return Math.min(from + 1, limit);
+		}
+
+		/**
+		 * Moves to the start of the next non-blank line, returning false at
+		 * the end of the chunk.
+		 */
+		boolean nextLine() {
+			while (true) {
+				position = Math.max(position, lineEnd);
+				if (position < end && buffer.get(position) == '\r')
+					position++;
+				if (position < end && buffer.get(position) == '\n')
+					position++;
+				if (position >= end)
+					return false;
+				lineEnd = position;
+				while (lineEnd < end && buffer.get(lineEnd) != '\n'
+						&& buffer.get(lineEnd) != '\r')
+					lineEnd++;
+				skipTabs();
+				if (position < lineEnd)
+					return true;
+			}
+		}
+
+		boolean hasNext() {
+			return position < lineEnd;
+		}
+
+		int nextInt() {
+			int from = position;
+			boolean negative = false;
+			if (position < lineEnd && buffer.get(position) == '-') {
+				negative = true;
+				position++;
+			}
+			long value = 0;
+			int digits = 0;
+			while (position < lineEnd) {
+				int d = buffer.get(position) - '0';
+				if (d < 0 || d > 9)
+					break;
+				value = value * 10 + d;
+				position++;
+				if (++digits > 10)
+					break;
+			}
+			if (digits == 0 || digits > 10 || !atSeparator())
+				return Integer.parseInt(fallback(from));
+			value = negative ? -value : value;
+			if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+				return Integer.parseInt(fallback(from));
+			skipTabs();
+			return (int) value;
+		}
+
+		/**
+		 * Reads a plain decimal number. Numbers with at most 15 significant
+		 * digits are worked out as one exact long divided by one exact power of
+		 * ten, which rounds the same as Double.parseDouble; anything longer,
+		 * or in exponent form, is passed to Double.parseDouble.
+		 */
+		double nextDouble() {
+			int from = position;
+			boolean negative = false;
+			if (position < lineEnd && buffer.get(position) == '-') {
+				negative = true;
+				position++;
+			}
+			long mantissa = 0;
+			int seen = 0, digits = 0, decimals = 0;
+			boolean point = false;
+			while (position < lineEnd) {
+				byte b = buffer.get(position);
+				if (b == '.' && !point) {
+					point = true;
+				} else if (b >= '0' && b <= '9') {
+					mantissa = mantissa * 10 + (b - '0');
+					seen++;
+					if (mantissa != 0)
+						digits++;
+					if (point)
+						decimals++;
+				} else {
+					break;
+				}
+				position++;
+			}
+			if (seen == 0 || digits > 15 || decimals >= POWERS.length
+					|| !atSeparator())
+				return Double.parseDouble(fallback(from));
+			skipTabs();
+			double value = mantissa / POWERS[decimals];
+			return negative ? -value : value;
+		}
+
+		private boolean atSeparator() {
+			return position == lineEnd || buffer.get(position) == '\t';
+		}
+
+		private void skipTabs() {
+			while (position < lineEnd && buffer.get(position) == '\t')
+				position++;
+		}
+
+		/**
+		 * Reads the whole field from from as a String, for the rare numbers
+		 * the fast paths don't handle.
+		 */
+		private String fallback(int from) {
+			int to = from;
+			while (to < lineEnd && buffer.get(to) != '\t')
+				to++;
+			byte[] bytes = new byte[to - from];
+			for (int i = 0; i < bytes.length; i++)
+				bytes[i] = buffer.get(from + i);
+			position = to;
+			skipTabs();
+			return new String(bytes, StandardCharsets.US_ASCII);
+		}
+	}
+}
@@ -1,3 +1,5 @@
+package journeyplanner;
+
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.Graphics;
@@ -15,16 +17,19 @@ import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.JToggleButton;
 import javax.swing.border.Border;
 import javax.swing.text.DefaultCaret;
 
@@ -115,6 +120,63 @@ public abstract class GUI {
 		return search;
 	}
 
+	/**
+	 * @return the search algorithm currently selected for routing.
+	 */
+	public RouteService.Algorithm getAlgorithm() {
+		return (RouteService.Algorithm) algorithm.getSelectedItem();
+	}
+
+	/**
+	 * @return the route profile (kind of traffic, and shortest or fastest)
+	 *         currently selected for routing.
+	 */
+	public RouteProfile getProfile() {
+		return (RouteProfile) profile.getSelectedItem();
+	}
+
+	/**
+	 * @return whether clicking on the map should close and reopen segments,
+	 *         rather than pick nodes to route between.
+	 */
+	public boolean isClosingRoads() {
+		return closeRoads.isSelected();
+	}
+
+	/**
+	 * @return the progress bar in the top bar, which is hidden unless
+	 *         something (eg. loading a map) is in progress.
+	 */
+	public JProgressBar getProgressBar() {
+		return progress;
+	}
+
+	/**
+	 * Turns the search box on or off, eg. while its index is being built.
+	 */
+	public void setSearchEnabled(boolean enabled) {
+		search.setEnabled(enabled);
+	}
+
+	/**
+	 * Turns the A* button and its drop downs on or off.
+	 */
+	public void setRoutingEnabled(boolean enabled) {
+		aStar.setEnabled(enabled);
+		algorithm.setEnabled(enabled);
+		profile.setEnabled(enabled);
+	}
+
+	/**
+	 * Turns the APnts and Close buttons on or off.
+	 */
+	public void setAPointsEnabled(boolean enabled) {
+		aPoints.setEnabled(enabled);
+		closeRoads.setEnabled(enabled);
+		if (!enabled)
+			closeRoads.setSelected(false);
+	}
+
 	/**
 	 * @return the dimensions of the drawing area.
 	 */
@@ -137,7 +199,9 @@ public abstract class GUI {
 	// assignment up to and including completion.
 	// --------------------------------------------------------------------
 
-	private static final boolean UPDATE_ON_EVERY_CHARACTER = false;
+	// searches run in the background (see SearchSession), so it's cheap
+	// enough to search again on every key press.
+	private static final boolean UPDATE_ON_EVERY_CHARACTER = true;
 
 	private static final int DEFAULT_DRAWING_HEIGHT = 400;
 	private static final int DEFAULT_DRAWING_WIDTH = 400;
@@ -167,6 +231,11 @@ public abstract class GUI {
 	private JTextArea textOutputArea;
 
 	protected JTextField search;
+	private JComboBox<RouteService.Algorithm> algorithm;
+	private JComboBox<RouteProfile> profile;
+	private JButton aStar, aPoints;
+	private JToggleButton closeRoads;
+	private JProgressBar progress;
 	private JFileChooser fileChooser;
 
 	public GUI() {
@@ -284,22 +353,32 @@ public abstract class GUI {
 			}
 		});
 		
-		JButton AStar = new JButton("A*");
-		AStar.addActionListener(new ActionListener() {
+		aStar = new JButton("A*");
+		aStar.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent ev) {
 				onAStar();
 				redraw();
 			}
 		});
 		
-		JButton APoints = new JButton("APnts");
-		APoints.addActionListener(new ActionListener() {
+		aPoints = new JButton("APnts");
+		aPoints.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent ev) {
 				onAPoints();
 				redraw();
 			}
 		});
 
+		// while this is down, clicks close and reopen segments instead.
+		closeRoads = new JToggleButton("Close");
+
+		// drop downs to choose which algorithm the A* button routes with, and
+		// what the route should be best for.
+		algorithm = new JComboBox<RouteService.Algorithm>(RouteService.Algorithm.values());
+		algorithm.setMaximumSize(new Dimension(150, 25));
+		profile = new JComboBox<RouteProfile>(RouteProfile.values());
+		profile.setMaximumSize(new Dimension(150, 25));
+
 		// next, make the search box at the top-right. we manually fix
 		// it's size, and add an action listener to call your code when
 		// the user presses enter.
@@ -317,9 +396,8 @@ public abstract class GUI {
 			// user doesn't need to hit enter for results.
 			search.addKeyListener(new KeyAdapter() {
 				public void keyReleased(KeyEvent e) {
-					// don't fire an event on backspace or delete
-					if (e.getKeyCode() == 8 || e.getKeyCode() == 127)
-						return;
+					// backspace and delete fire too, as a search only has to
+					// step back along the trie.
 					search.postActionEvent();
 				}
 			});
@@ -358,18 +436,33 @@ public abstract class GUI {
 		controls.add(Box.createRigidArea(new Dimension(15, 0)));
 
 		JPanel navigation = new JPanel();
-		navigation.setMaximumSize(new Dimension(150, 60));
-		navigation.setLayout(new GridLayout(2, 4));
+		navigation.setMaximumSize(new Dimension(190, 60));
+		navigation.setLayout(new GridLayout(2, 5));
 		navigation.add(out);
 		navigation.add(north);
 		navigation.add(in);
-		navigation.add(AStar);
+		navigation.add(aStar);
+		navigation.add(aPoints);
 		navigation.add(west);
 		navigation.add(south);
 		navigation.add(east);
-		navigation.add(APoints);
+		navigation.add(Box.createGlue());
+		navigation.add(closeRoads);
 		controls.add(navigation);
 		controls.add(Box.createRigidArea(new Dimension(15, 0)));
+		JPanel routing = new JPanel();
+		routing.setLayout(new GridLayout(2, 1));
+		routing.setMaximumSize(new Dimension(180, 60));
+		routing.add(algorithm);
+		routing.add(profile);
+		controls.add(routing);
+		controls.add(Box.createRigidArea(new Dimension(15, 0)));
+		// the progress bar only shows while a map loads.
+		progress = new JProgressBar(0, 100);
+		progress.setStringPainted(true);
+		progress.setMaximumSize(new Dimension(200, 25));
+		progress.setVisible(false);
+		controls.add(progress);
 		// glue is another invisible component that grows to take up all the
 		// space it can on resize.
 		controls.add(Box.createHorizontalGlue());
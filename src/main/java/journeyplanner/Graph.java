@@ -0,0 +1,372 @@
+package journeyplanner;
+
+import java.awt.BasicStroke;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * This represents the data structure storing all the roads, nodes, and
+ * segments, as well as some information on which nodes and segments should be
+ * highlighted.
+ * 
+ * @author tony
+ */
+public class Graph {
+	// how many pixels past the edge of the screen to still draw things.
+	private static final int DRAW_MARGIN = 8;
+	// whether to read the node and segment files with FastParser, which
+	// is much quicker on big maps, or the original Parser.
+	static final boolean FAST_PARSER = true;
+
+	// map node IDs to Nodes.
+	Map<Integer, Node> nodes = new HashMap<>();
+	// map road IDs to Roads.
+	Map<Integer, Road> roads;
+	// just some collection of Segments.
+	Collection<Segment> segments;
+	// the same nodes and segments in compressed-sparse-row form, for routing.
+	// this and the indexes are volatile as a MapLoader fills them in on its
+	// own thread, while the map is already being drawn.
+	volatile CompactGraph compact;
+	// spatial indexes over the node locations and segment bounding boxes, for
+	// finding clicked nodes and what's on screen.
+	volatile KdTree nodeIndex;
+	volatile SegmentIndex segmentIndex;
+
+	Collection<Node> highlightedNodes = new HashSet<>();
+	Collection<Segment> highlightedSegments = new HashSet<>();
+	Collection<Road> highlightedRoads = new HashSet<>();
+	// closed segments are drawn over everything else, however highlighting
+	// changes.
+	private final Collection<Segment> closedSegments = new HashSet<>();
+
+	// the articulation points and bridges with the closed segments left
+	// out, made when a segment is first closed.
+	private IncrementalArticulationPoints closures;
+
+	public Graph(File nodes, File roads, File segments, File polygons) {
+		readNodes(nodes);
+		readRoads(roads);
+		readSegments(segments);
+		buildAdjacency();
+		buildSpatialIndexes();
+	}
+
+	/**
+	 * Makes an empty graph, to be filled in a stage at a time with the
+	 * methods below, see MapLoader.
+	 */
+	Graph() {
+	}
+
+	/**
+	 * Makes a graph from parts that have already been loaded, see
+	 * GraphSnapshot. It has no spatial indexes until buildSpatialIndexes()
+	 * is called.
+	 */
+	Graph(Map<Integer, Node> nodes, Map<Integer, Road> roads,
+			Collection<Segment> segments, CompactGraph compact) {
+		this.nodes = nodes;
+		this.roads = roads;
+		this.segments = segments;
+		this.compact = compact;
+	}
+
+	void readNodes(File nodes) {
+		this.nodes = FAST_PARSER ? FastParser.parseNodes(nodes, this)
+				: Parser.parseNodes(nodes, this);
+	}
+
+	void readRoads(File roads) {
+		this.roads = Parser.parseRoads(roads, this);
+	}
+
+	/**
+	 * Reads the segments, which needs the nodes and roads to be read first.
+	 */
+	void readSegments(File segments) {
+		this.segments = FAST_PARSER ? FastParser.parseSegments(segments, this)
+				: Parser.parseSegments(segments, this);
+	}
+
+	void buildAdjacency() {
+		this.compact = new CompactGraph(this.nodes.values(), this.segments);
+	}
+
+	void buildSpatialIndexes() {
+		this.nodeIndex = new KdTree(this.compact);
+		this.segmentIndex = new SegmentIndex(this.compact);
+	}
+
+	/**
+	 * Loads a graph from the given files. With snapshot set, it comes from
+	 * the snapshot next to them if there is an up to date one; otherwise the
+	 * files are parsed, and a snapshot is written to make the next load
+	 * quicker. Without it, the files are always parsed and nothing is
+	 * written.
+	 */
+	public static Graph load(File nodes, File roads, File segments, File polygons,
+			boolean snapshot) {
+		if (!snapshot)
+			return new Graph(nodes, roads, segments, polygons);
+		File file = new File(nodes.getAbsoluteFile().getParentFile(),
+				GraphSnapshot.FILE_NAME);
+		Graph graph = GraphSnapshot.read(file, nodes, roads, segments);
+		if (graph != null) {
+			graph.buildSpatialIndexes();
+			return graph;
+		}
+		graph = new Graph(nodes, roads, segments, polygons);
+		GraphSnapshot.write(graph, file, nodes, roads, segments);
+		return graph;
+	}
+
+	/**
+	 * Parses a graph from a directory holding the usual data files, for use
+	 * outside the GUI. No snapshot is read or written, so loading doesn't
+	 * depend on, or leave behind, anything but the data files.
+	 */
+	public static Graph fromDirectory(File directory) {
+		return fromDirectory(directory, false);
+	}
+
+	/**
+	 * Loads a graph from a directory holding the usual data files, using a
+	 * snapshot if snapshot is set, see load.
+	 */
+	public static Graph fromDirectory(File directory, boolean snapshot) {
+		File polygons = new File(directory, "polygon-shapes.mp");
+		return load(new File(directory, "nodeID-lat-lon.tab"),
+				new File(directory, "roadID-roadInfo.tab"),
+				new File(directory, "roadSeg-roadID-length-nodeID-nodeID-coords.tab"),
+				polygons.exists() ? polygons : null, snapshot);
+	}
+
+	/**
+	 * Draws the whole map, highlights and all, straight onto the screen.
+	 */
+	public void draw(Graphics g, Dimension screen, Location origin, double scale) {
+		drawNetwork(g, screen, origin, scale);
+		drawHighlights(g, screen, origin, scale);
+	}
+
+	/**
+	 * Draws the segments and nodes of the map that are inside the given area,
+	 * without any highlighting. This only reads the graph, so it's safe to
+	 * call from the TileRenderer's threads. Until the spatial indexes are
+	 * built, everything is drawn and left to clip.
+	 */
+	public void drawNetwork(Graphics g, Dimension screen, Location origin,
+			double scale) {
+		// work out the part of the map that's on screen, and only draw the
+		// segments and nodes there. it's padded by a few pixels so that the
+		// edges of node squares just off screen still show.
+		double pad = DRAW_MARGIN / scale;
+		double x0 = origin.x - pad, x1 = origin.x + screen.width / scale + pad;
+		double y1 = origin.y + pad, y0 = origin.y - screen.height / scale - pad;
+		CompactGraph compact = this.compact;
+		SegmentIndex segmentIndex = this.segmentIndex;
+		KdTree nodeIndex = this.nodeIndex;
+
+		g.setColor(Mapper.SEGMENT_COLOUR);
+		int detail = Segment.detailLevel(scale);
+		if (segmentIndex != null)
+			segmentIndex.query(x0, y0, x1, y1,
+					i -> compact.segment(i).draw(g, origin, scale, detail));
+		else
+			for (Segment segment : segments)
+				segment.draw(g, origin, scale, detail);
+
+		g.setColor(Mapper.NODE_COLOUR);
+		if (nodeIndex != null)
+			nodeIndex.range(x0, y0, x1, y1,
+					i -> compact.node(i).draw(g, screen, origin, scale));
+		else
+			for (Node node : nodes.values())
+				node.draw(g, screen, origin, scale);
+	}
+
+	/**
+	 * Draws the segments and nodes of any RoadNetwork that are inside the
+	 * given area, using the given spatial indexes over it. Unlike the
+	 * instance method this doesn't need Node or Segment objects, so it works
+	 * for an OffHeapGraph, but lines are always drawn at full detail.
+	 */
+	public static void drawNetwork(Graphics g, RoadNetwork network,
+			SegmentIndex segmentIndex, KdTree nodeIndex, Dimension screen,
+			Location origin, double scale) {
+		double pad = DRAW_MARGIN / scale;
+		double x0 = origin.x - pad, x1 = origin.x + screen.width / scale + pad;
+		double y1 = origin.y + pad, y0 = origin.y - screen.height / scale - pad;
+
+		g.setColor(Mapper.SEGMENT_COLOUR);
+		segmentIndex.query(x0, y0, x1, y1,
+				s -> Segment.draw(g, network, s, origin, scale));
+
+		g.setColor(Mapper.NODE_COLOUR);
+		nodeIndex.range(x0, y0, x1, y1, v -> Node.draw(g, network.x(v),
+				network.y(v), screen, origin, scale));
+	}
+
+	/**
+	 * Draws the highlighted segments, roads and nodes over the top of the
+	 * network.
+	 */
+	public void drawHighlights(Graphics g, Dimension screen, Location origin,
+			double scale) {
+		// a compatibility wart on swing is that it has to give out Graphics
+		// objects, but Graphics2D objects are nicer to work with. Luckily
+		// they're a subclass, and swing always gives them out anyway, so we can
+		// just do this.
+		Graphics2D g2 = (Graphics2D) g;
+		g2.setColor(Mapper.HIGHLIGHT_COLOUR);
+		for (Segment seg : highlightedSegments) {
+			seg.draw(g2, origin, scale);
+		}
+
+		// draw the segments of all highlighted roads.
+		Stroke stroke = g2.getStroke();
+		g2.setStroke(new BasicStroke(3));
+		for (Road road : highlightedRoads) {
+			for (Segment seg : road.components) {
+				seg.draw(g2, origin, scale);
+			}
+		}
+		g2.setStroke(stroke);
+
+		// draw the highlighted node, if it exists.
+		for (Node n : highlightedNodes) {
+			n.draw(g2, screen, origin, scale);
+		}
+
+		g2.setColor(Mapper.CLOSED_COLOUR);
+		g2.setStroke(new BasicStroke(2));
+		for (Segment seg : closedSegments) {
+			seg.draw(g2, origin, scale);
+		}
+		g2.setStroke(stroke);
+	}
+
+	/**
+	 * Finds the segment whose line passes closest to the given location, or
+	 * null if there's none within maxDistance. Needs the spatial indexes.
+	 */
+	public Segment nearestSegment(Location location, double maxDistance) {
+		double[] best = { maxDistance };
+		int[] nearest = { -1 };
+		segmentIndex.query(location.x - maxDistance, location.y - maxDistance,
+				location.x + maxDistance, location.y + maxDistance, s -> {
+					for (int p = 1; p < compact.pointCount(s); p++) {
+						double d = distanceToLine(location.x, location.y,
+								compact.pointX(s, p - 1), compact.pointY(s, p - 1),
+								compact.pointX(s, p), compact.pointY(s, p));
+						if (d < best[0]) {
+							best[0] = d;
+							nearest[0] = s;
+						}
+					}
+				});
+		return nearest[0] < 0 ? null : compact.segment(nearest[0]);
+	}
+
+	/**
+	 * Distance from (x, y) to the line from (x0, y0) to (x1, y1).
+	 */
+	private static double distanceToLine(double x, double y, double x0,
+			double y0, double x1, double y1) {
+		double dx = x1 - x0, dy = y1 - y0;
+		double squared = dx * dx + dy * dy;
+		double t = squared == 0 ? 0
+				: Math.max(0, Math.min(1, ((x - x0) * dx + (y - y0) * dy) / squared));
+		return Math.hypot(x - (x0 + t * dx), y - (y0 + t * dy));
+	}
+
+	/**
+	 * Draws a route's segments and the nodes along it in the highlight
+	 * colour.
+	 */
+	public void drawRoute(Graphics g, Dimension screen, Location origin,
+			double scale, RouteResult route) {
+		g.setColor(Mapper.HIGHLIGHT_COLOUR);
+		for (Segment seg : route.segments) {
+			seg.draw(g, origin, scale);
+		}
+		for (Node n : route.nodes) {
+			n.draw(g, screen, origin, scale);
+		}
+	}
+
+	/**
+	 * Closes a segment, eg. for roadworks, and updates closures() to match.
+	 * Returns false if it was already closed.
+	 */
+	public boolean closeSegment(Segment segment) {
+		if (!closures().close(segment.index))
+			return false;
+		closedSegments.add(segment);
+		return true;
+	}
+
+	/**
+	 * Reopens a closed segment, returning false if it wasn't closed.
+	 */
+	public boolean reopenSegment(Segment segment) {
+		if (!closures().reopen(segment.index))
+			return false;
+		closedSegments.remove(segment);
+		return true;
+	}
+
+	public boolean isClosed(Segment segment) {
+		return closures != null && closures.isClosed(segment.index);
+	}
+
+	/**
+	 * The articulation points and bridges of the map with its closed
+	 * segments left out, kept up to date as segments are closed and
+	 * reopened.
+	 */
+	public IncrementalArticulationPoints closures() {
+		if (closures == null)
+			closures = new IncrementalArticulationPoints(compact);
+		return closures;
+	}
+
+	/**
+	 * Which segments are closed, by segment index, or null if none ever have
+	 * been.
+	 */
+	public boolean[] closedSegments() {
+		return closures == null ? null : closures.closedSegments();
+	}
+
+	/**
+	 * Removes all highlighting, ready for whatever is highlighted next.
+	 */
+	public void clearHighlights() {
+		highlightedNodes = new HashSet<>();
+		highlightedSegments = new HashSet<>();
+		highlightedRoads = new HashSet<>();
+	}
+
+	public void setHighlightNodes(Collection<Node> nodes) {
+		this.highlightedNodes = nodes;
+	}
+	
+	public void setHighlightSegments(Collection<Segment> segments) {
+		this.highlightedSegments = segments;
+	}
+
+	public void setHighlightRoads(Collection<Road> roads) {
+		this.highlightedRoads = roads;
+	}
+}
+
+// code for COMP261 assignments
\ No newline at end of file
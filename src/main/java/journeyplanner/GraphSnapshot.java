@@ -0,0 +1,630 @@
+package journeyplanner;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes a binary snapshot of a Graph, so a map that has been
+ * opened before can be loaded without parsing the text files again. The GUI
+ * writes the snapshot next to the data files after they are first parsed
+ * (other code only does if it asks to, see Graph.load), and it's memory
+ * mapped when it's read back.
+ *
+ * Reading a snapshot only saves parsing time. read() still builds every
+ * Node, Road, Segment and Location on the heap, so the loaded Graph takes as
+ * much memory as a parsed one. For maps too big for that, writeStreaming
+ * makes a snapshot straight from the text files, and OffHeapGraph routes over
+ * it without loading it.
+ *
+ * The file starts with a header: a magic number, the format VERSION, and the
+ * CRC32 of each of the node, road and segment files it was made from. If any
+ * of those don't match, the snapshot is ignored (and later overwritten).
+ * After that come columnar sections, each a run of length-prefixed primitive
+ * arrays:
+ *
+ * nodes: IDs, x, y (in CompactGraph order), and the node indices in order
+ *        of ID, for looking nodes up by ID
+ * roads: IDs, one way flags, speed limits, road classes, restrictions,
+ *        names, cities
+ * segments: road, start node and end node (as indices into the sections
+ *        above), lengths, the offset of each segment's first point, and the
+ *        x and y of every point
+ * adjacency: the nine arrays of CompactGraph.adjacency()
+ *
+ * Strings are stored as an array of offsets into one array of UTF-8 bytes.
+ * The file ends with the magic number again. All numbers are big-endian.
+ */
+public class GraphSnapshot {
+	public static final String FILE_NAME = "graph.snapshot";
+	// "JPGS", for JourneyPlanner graph snapshot.
+	static final int MAGIC = 0x4A504753;
+	// bump this whenever the layout changes, so old snapshots are ignored.
+	static final int VERSION = 2;
+
+	/**
+	 * Reads the graph from the snapshot, or returns null if there isn't a
+	 * snapshot or it wasn't made from these files. The whole graph is built
+	 * on the heap, as if it had been parsed.
+	 */
+	public static Graph read(File snapshot, File nodeFile, File roadFile,
+			File segmentFile) {
+		if (!snapshot.isFile())
+			return null;
+		try (FileChannel channel = FileChannel.open(snapshot.toPath(),
+				StandardOpenOption.READ)) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+			if (in.getInt() != MAGIC || in.getInt() != VERSION
+					|| in.getLong() != checksum(nodeFile)
+					|| in.getLong() != checksum(roadFile)
+					|| in.getLong() != checksum(segmentFile))
+				return null;
+
+			// nodes.
+			int[] nodeIDs = ints(in);
+			double[] xs = doubles(in), ys = doubles(in);
+			// CompactGraph works out its own order by ID.
+			in.position(in.position() + 4 + 4 * in.getInt(in.position()));
+			Node[] nodes = new Node[nodeIDs.length];
+			Map<Integer, Node> nodeMap = new HashMap<Integer, Node>();
+			for (int i = 0; i < nodes.length; i++) {
+				nodes[i] = new Node(nodeIDs[i], new Location(xs[i], ys[i]));
+				nodeMap.put(nodeIDs[i], nodes[i]);
+			}
+
+			// roads.
+			int[] roadIDs = ints(in), oneways = ints(in);
+			byte[] speeds = bytes(in), classes = bytes(in), restrictions = bytes(in);
+			String[] names = strings(in), cities = strings(in);
+			Road[] roads = new Road[roadIDs.length];
+			Map<Integer, Road> roadMap = new HashMap<Integer, Road>();
+			for (int i = 0; i < roads.length; i++) {
+				int r = restrictions[i];
+				roads[i] = new Road(roadIDs[i], 0, names[i], cities[i],
+						oneways[i], speeds[i], classes[i], r & Road.NOT_FOR_CAR,
+						r & Road.NOT_FOR_PEDESTRIANS, r & Road.NOT_FOR_BICYCLES);
+				roadMap.put(roadIDs[i], roads[i]);
+			}
+
+			// segments.
+			int[] segmentRoads = ints(in), starts = ints(in), ends = ints(in);
+			double[] lengths = doubles(in);
+			int[] firstPoint = ints(in);
+			double[] pointXs = doubles(in), pointYs = doubles(in);
+			Segment[] segments = new Segment[segmentRoads.length];
+			for (int s = 0; s < segments.length; s++) {
+				Location[] points = new Location[firstPoint[s + 1] - firstPoint[s]];
+				for (int p = 0; p < points.length; p++)
+					points[p] = new Location(pointXs[firstPoint[s] + p],
+							pointYs[firstPoint[s] + p]);
+				segments[s] = new Segment(roads[segmentRoads[s]], nodes[starts[s]],
+						nodes[ends[s]], lengths[s], points);
+			}
+
+			// adjacency.
+			int[][] adjacency = new int[9][];
+			for (int a = 0; a < adjacency.length; a++)
+				adjacency[a] = ints(in);
+
+			if (in.getInt() != MAGIC)
+				return null;
+			List<Segment> segmentList = new ArrayList<Segment>(segments.length);
+			for (Segment s : segments)
+				segmentList.add(s);
+			return new Graph(nodeMap, roadMap, segmentList,
+					new CompactGraph(nodes, segments, adjacency));
+		} catch (IOException | RuntimeException e) {
+			// a snapshot that can't be read is no worse than no snapshot.
+			System.err.println("Ignoring unreadable snapshot " + snapshot + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the graph, which was loaded from the given files.
+	 * Failing to write one (eg. because the map directory is read only) isn't
+	 * fatal, so is only reported.
+	 */
+	public static void write(Graph graph, File snapshot, File nodeFile,
+			File roadFile, File segmentFile) {
+		CompactGraph compact = graph.compact;
+		File temp = new File(snapshot.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checksum(nodeFile));
+			out.writeLong(checksum(roadFile));
+			out.writeLong(checksum(segmentFile));
+
+			// nodes.
+			int n = compact.size();
+			int[] nodeIDs = new int[n];
+			double[] xs = new double[n], ys = new double[n];
+			for (int v = 0; v < n; v++) {
+				nodeIDs[v] = compact.node(v).nodeID;
+				xs[v] = compact.x(v);
+				ys[v] = compact.y(v);
+			}
+			write(out, nodeIDs);
+			write(out, xs);
+			write(out, ys);
+			write(out, compact.byID());
+
+			// roads.
+			List<Road> roads = new ArrayList<Road>(graph.roads.values());
+			Map<Road, Integer> roadIndex = new HashMap<Road, Integer>();
+			int r = roads.size();
+			int[] roadIDs = new int[r], oneways = new int[r];
+			byte[] speeds = new byte[r], classes = new byte[r], restrictions = new byte[r];
+			String[] names = new String[r], cities = new String[r];
+			for (int i = 0; i < r; i++) {
+				Road road = roads.get(i);
+				roadIndex.put(road, i);
+				roadIDs[i] = road.roadID;
+				oneways[i] = road.oneway;
+				speeds[i] = road.speed;
+				classes[i] = road.roadclass;
+				restrictions[i] = road.restrictions;
+				names[i] = road.name;
+				cities[i] = road.city;
+			}
+			write(out, roadIDs);
+			write(out, oneways);
+			write(out, speeds);
+			write(out, classes);
+			write(out, restrictions);
+			write(out, names);
+			write(out, cities);
+
+			// segments.
+			int m = compact.segmentCount();
+			int[] segmentRoads = new int[m], starts = new int[m], ends = new int[m];
+			double[] lengths = new double[m];
+			int[] firstPoint = new int[m + 1];
+			for (int s = 0; s < m; s++) {
+				Segment segment = compact.segment(s);
+				segmentRoads[s] = roadIndex.get(segment.road);
+				starts[s] = segment.start.index;
+				ends[s] = segment.end.index;
+				lengths[s] = segment.length;
+				firstPoint[s + 1] = firstPoint[s] + segment.points.length;
+			}
+			double[] pointXs = new double[firstPoint[m]];
+			double[] pointYs = new double[firstPoint[m]];
+			for (int s = 0; s < m; s++) {
+				Location[] points = compact.segment(s).points;
+				for (int p = 0; p < points.length; p++) {
+					pointXs[firstPoint[s] + p] = points[p].x;
+					pointYs[firstPoint[s] + p] = points[p].y;
+				}
+			}
+			write(out, segmentRoads);
+			write(out, starts);
+			write(out, ends);
+			write(out, lengths);
+			write(out, firstPoint);
+			write(out, pointXs);
+			write(out, pointYs);
+
+			// adjacency.
+			for (int[] array : compact.adjacency())
+				write(out, array);
+
+			out.writeInt(MAGIC);
+		} catch (IOException e) {
+			System.err.println("Couldn't write snapshot " + snapshot + ": " + e);
+			temp.delete();
+			return;
+		}
+
+		try {
+			Files.move(temp.toPath(), snapshot.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			System.err.println("Couldn't write snapshot " + snapshot + ": " + e);
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Makes a snapshot of a map directory without loading it, see
+	 * writeStreaming.
+	 *
+	 * Usage: java journeyplanner.GraphSnapshot <map directory>
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: java journeyplanner.GraphSnapshot <map directory>");
+			return;
+		}
+		File directory = new File(args[0]);
+		File snapshot = new File(directory, FILE_NAME);
+		long begin = System.nanoTime();
+		writeStreaming(snapshot, new File(directory, "nodeID-lat-lon.tab"),
+				new File(directory, "roadID-roadInfo.tab"),
+				new File(directory, "roadSeg-roadID-length-nodeID-nodeID-coords.tab"));
+		System.out.printf("Wrote %s (%.1fMB) in %.1fs.%n", snapshot,
+				snapshot.length() / 1e6, (System.nanoTime() - begin) / 1e9);
+	}
+
+	/**
+	 * Writes a snapshot straight from the data files, without making any
+	 * Node, Road or Segment objects, so maps too big to load onto the heap
+	 * can still be opened with OffHeapGraph. Only a few numbers per node and
+	 * segment are held at once, and road names. The segment file is read
+	 * three times, so the points of the segments are never all held.
+	 *
+	 * As with Parser, a later line wins over an earlier one with the same
+	 * node or road ID. A segment whose road or nodes aren't in the other
+	 * files is an error.
+	 */
+	public static void writeStreaming(File snapshot, File nodeFile,
+			File roadFile, File segmentFile) throws IOException {
+		// nodes, in file order.
+		Ints nodeIDs = new Ints();
+		Doubles xs = new Doubles(), ys = new Doubles();
+		try (BufferedReader in = Files.newBufferedReader(nodeFile.toPath(),
+				StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				String[] tokens = line.split("[\t]+");
+				Location location = Location.newFromLatLon(
+						Double.parseDouble(tokens[1]), Double.parseDouble(tokens[2]));
+				nodeIDs.add(Integer.parseInt(tokens[0]));
+				xs.add(location.x);
+				ys.add(location.y);
+			}
+		}
+		int[] keptNodes = lastOfEachID(nodeIDs.toArray());
+		int[] nodeIDArray = nodeIDs.select(keptNodes);
+		int[] nodesByID = CompactGraph.orderByID(nodeIDArray);
+
+		// roads, in file order after the header.
+		Ints roadIDs = new Ints(), oneways = new Ints();
+		Ints speeds = new Ints(), classes = new Ints(), restrictions = new Ints();
+		List<String> names = new ArrayList<String>(), cities = new ArrayList<String>();
+		try (BufferedReader in = Files.newBufferedReader(roadFile.toPath(),
+				StandardCharsets.UTF_8)) {
+			in.readLine();
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				String[] tokens = line.split("[\t]+");
+				Road road = new Road(Integer.parseInt(tokens[0]), 0, tokens[2],
+						tokens[3], Integer.parseInt(tokens[4]),
+						Integer.parseInt(tokens[5]), Integer.parseInt(tokens[6]),
+						Integer.parseInt(tokens[7]), Integer.parseInt(tokens[8]),
+						Integer.parseInt(tokens[9]));
+				roadIDs.add(road.roadID);
+				oneways.add(road.oneway);
+				speeds.add(road.speed);
+				classes.add(road.roadclass);
+				restrictions.add(road.restrictions);
+				names.add(road.name);
+				cities.add(road.city);
+			}
+		}
+		int[] keptRoads = lastOfEachID(roadIDs.toArray());
+		int[] roadIDArray = roadIDs.select(keptRoads);
+		int[] roadsByID = CompactGraph.orderByID(roadIDArray);
+		int[] onewayArray = oneways.select(keptRoads);
+
+		// segments, without their points.
+		Ints segmentRoads = new Ints(), starts = new Ints(), ends = new Ints();
+		Doubles lengths = new Doubles();
+		Ints firstPoint = new Ints();
+		firstPoint.add(0);
+		try (BufferedReader in = Files.newBufferedReader(segmentFile.toPath(),
+				StandardCharsets.UTF_8)) {
+			in.readLine();
+			String line;
+			int lineNumber = 1;
+			while ((line = in.readLine()) != null) {
+				lineNumber++;
+				if (line.isEmpty())
+					continue;
+				String[] tokens = line.split("[\t]+");
+				int road = find(roadIDArray, roadsByID, Integer.parseInt(tokens[0]));
+				int start = find(nodeIDArray, nodesByID, Integer.parseInt(tokens[2]));
+				int end = find(nodeIDArray, nodesByID, Integer.parseInt(tokens[3]));
+				if (road < 0 || start < 0 || end < 0)
+					throw new IOException("line " + lineNumber + " of " + segmentFile
+							+ " refers to a road or node that isn't in the other files");
+				segmentRoads.add(road);
+				starts.add(start);
+				ends.add(end);
+				lengths.add(Double.parseDouble(tokens[1]));
+				firstPoint.add(firstPoint.last() + (tokens.length - 4) / 2);
+			}
+		}
+		int[] startArray = starts.toArray(), endArray = ends.toArray();
+		boolean[] oneway = new boolean[startArray.length];
+		for (int s = 0; s < oneway.length; s++)
+			oneway[s] = onewayArray[segmentRoads.get(s)] != 0;
+
+		File temp = new File(snapshot.getPath() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(checksum(nodeFile));
+			out.writeLong(checksum(roadFile));
+			out.writeLong(checksum(segmentFile));
+
+			write(out, nodeIDArray);
+			write(out, xs.select(keptNodes));
+			write(out, ys.select(keptNodes));
+			write(out, nodesByID);
+
+			write(out, roadIDArray);
+			write(out, onewayArray);
+			write(out, speeds.selectBytes(keptRoads));
+			write(out, classes.selectBytes(keptRoads));
+			write(out, restrictions.selectBytes(keptRoads));
+			write(out, select(names, keptRoads));
+			write(out, select(cities, keptRoads));
+
+			write(out, segmentRoads.toArray());
+			write(out, startArray);
+			write(out, endArray);
+			write(out, lengths.toArray());
+			write(out, firstPoint.toArray());
+			writePoints(out, segmentFile, firstPoint.last(), true);
+			writePoints(out, segmentFile, firstPoint.last(), false);
+
+			for (int[] array : CompactGraph.buildAdjacency(nodeIDArray.length,
+					startArray, endArray, oneway))
+				write(out, array);
+
+			out.writeInt(MAGIC);
+		} catch (IOException | RuntimeException e) {
+			temp.delete();
+			throw e;
+		}
+		Files.move(temp.toPath(), snapshot.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Reads the segment file again, writing the x (or y) of every point as
+	 * one array of the given length.
+	 */
+	private static void writePoints(DataOutputStream out, File segmentFile,
+			int count, boolean x) throws IOException {
+		out.writeInt(count);
+		int written = 0;
+		try (BufferedReader in = Files.newBufferedReader(segmentFile.toPath(),
+				StandardCharsets.UTF_8)) {
+			in.readLine();
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				String[] tokens = line.split("[\t]+");
+				for (int i = 4; i + 1 < tokens.length; i += 2) {
+					Location point = Location.newFromLatLon(
+							Double.parseDouble(tokens[i]), Double.parseDouble(tokens[i + 1]));
+					out.writeDouble(x ? point.x : point.y);
+					written++;
+				}
+			}
+		}
+		if (written != count)
+			throw new IOException(segmentFile + " changed while it was being read");
+	}
+
+	/**
+	 * The positions of the last line with each ID, in file order.
+	 */
+	private static int[] lastOfEachID(int[] ids) {
+		int[] order = CompactGraph.orderByID(ids);
+		boolean[] kept = new boolean[ids.length];
+		int count = 0;
+		for (int i = 0; i < order.length; i++) {
+			// lines with the same ID are in file order, so keep the last.
+			if (i + 1 == order.length || ids[order[i + 1]] != ids[order[i]]) {
+				kept[order[i]] = true;
+				count++;
+			}
+		}
+		int[] lines = new int[count];
+		for (int i = 0, j = 0; i < ids.length; i++)
+			if (kept[i])
+				lines[j++] = i;
+		return lines;
+	}
+
+	/**
+	 * Finds the index with the given ID, given the indices in order of ID,
+	 * or returns -1.
+	 */
+	private static int find(int[] ids, int[] byID, int id) {
+		int low = 0, high = byID.length - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int found = ids[byID[middle]];
+			if (found < id)
+				low = middle + 1;
+			else if (found > id)
+				high = middle - 1;
+			else
+				return byID[middle];
+		}
+		return -1;
+	}
+
+	private static String[] select(List<String> strings, int[] positions) {
+		String[] selected = new String[positions.length];
+		for (int i = 0; i < positions.length; i++)
+			selected[i] = strings.get(positions[i]);
+		return selected;
+	}
+
+	/**
+	 * The CRC32 of a whole file, read through a memory mapping.
+	 */
+	private static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long from = 0; from < size; from += Integer.MAX_VALUE) {
+				long length = Math.min(Integer.MAX_VALUE, size - from);
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, from, length));
+			}
+		}
+		return crc.getValue();
+	}
+
+	// ---- reading arrays ----
+
+	private static int[] ints(ByteBuffer in) {
+		int[] array = new int[in.getInt()];
+		in.asIntBuffer().get(array);
+		in.position(in.position() + 4 * array.length);
+		return array;
+	}
+
+	private static double[] doubles(ByteBuffer in) {
+		double[] array = new double[in.getInt()];
+		in.asDoubleBuffer().get(array);
+		in.position(in.position() + 8 * array.length);
+		return array;
+	}
+
+	private static byte[] bytes(ByteBuffer in) {
+		byte[] array = new byte[in.getInt()];
+		in.get(array);
+		return array;
+	}
+
+	private static String[] strings(ByteBuffer in) {
+		int[] offsets = ints(in);
+		byte[] text = bytes(in);
+		String[] strings = new String[offsets.length - 1];
+		for (int i = 0; i < strings.length; i++)
+			strings[i] = new String(text, offsets[i], offsets[i + 1] - offsets[i],
+					StandardCharsets.UTF_8);
+		return strings;
+	}
+
+	// ---- writing arrays ----
+
+	private static void write(DataOutputStream out, int[] array)
+			throws IOException {
+		out.writeInt(array.length);
+		for (int x : array)
+			out.writeInt(x);
+	}
+
+	private static void write(DataOutputStream out, double[] array)
+			throws IOException {
+		out.writeInt(array.length);
+		for (double x : array)
+			out.writeDouble(x);
+	}
+
+	private static void write(DataOutputStream out, byte[] array)
+			throws IOException {
+		out.writeInt(array.length);
+		out.write(array);
+	}
+
+	private static void write(DataOutputStream out, String[] strings)
+			throws IOException {
+		int[] offsets = new int[strings.length + 1];
+		List<byte[]> encoded = new ArrayList<byte[]>(strings.length);
+		for (int i = 0; i < strings.length; i++) {
+			byte[] bytes = strings[i].getBytes(StandardCharsets.UTF_8);
+			encoded.add(bytes);
+			offsets[i + 1] = offsets[i] + bytes.length;
+		}
+		write(out, offsets);
+		out.writeInt(offsets[strings.length]);
+		for (byte[] bytes : encoded)
+			out.write(bytes);
+	}
+
+	/**
+	 * A growable array of ints, for reading columns of unknown length.
+	 */
+	private static class Ints {
+		private int[] items = new int[16];
+		private int size = 0;
+
+		void add(int item) {
+			if (size == items.length)
+				items = Arrays.copyOf(items, size * 2);
+			items[size++] = item;
+		}
+
+		int get(int i) {
+			return items[i];
+		}
+
+		int last() {
+			return items[size - 1];
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(items, size);
+		}
+
+		int[] select(int[] positions) {
+			int[] selected = new int[positions.length];
+			for (int i = 0; i < positions.length; i++)
+				selected[i] = items[positions[i]];
+			return selected;
+		}
+
+		byte[] selectBytes(int[] positions) {
+			byte[] selected = new byte[positions.length];
+			for (int i = 0; i < positions.length; i++)
+				selected[i] = (byte) items[positions[i]];
+			return selected;
+		}
+	}
+
+	private static class Doubles {
+		private double[] items = new double[16];
+		private int size = 0;
+
+		void add(double item) {
+			if (size == items.length)
+				items = Arrays.copyOf(items, size * 2);
+			items[size++] = item;
+		}
+
+		double[] toArray() {
+			return Arrays.copyOf(items, size);
+		}
+
+		double[] select(int[] positions) {
+			double[] selected = new double[positions.length];
+			for (int i = 0; i < positions.length; i++)
+				selected[i] = items[positions[i]];
+			return selected;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package journeyplanner;
+
+/**
+ * A lower bound on the remaining cost from a node to the target of an A*
+ * search. Implementations may cache things about the target, so each search
+ * engine has its own instance and calls target before every query.
+ */
+public interface Heuristic {
+
+	/**
+	 * Prepares to estimate distances to the given target node.
+	 */
+	void target(int target);
+
+	/**
+	 * Estimates the cost from the given node to the target. This must never
+	 * be more than the real cost, and must be consistent (it may drop by no
+	 * more than the cost of an edge crossed) for A* to be correct.
+	 */
+	double estimate(int node);
+}
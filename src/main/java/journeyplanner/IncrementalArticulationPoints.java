@@ -0,0 +1,467 @@
+package journeyplanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the articulation points and bridges of a RoadNetwork up to date as
+ * segments are closed and reopened, without searching the whole graph again
+ * for each change.
+ *
+ * It keeps the biconnected components (blocks) of the open segments. A node
+ * is an articulation point when its open segments are in more than one
+ * block, and a segment is a bridge when it's the only segment in its block.
+ * Closing a segment can only split the block it was in, so only that block is
+ * searched again. Reopening one joins up the blocks on the path between its
+ * ends in the block-cut tree, found by a breadth first search over blocks, or
+ * makes it a block (and bridge) of its own if its ends weren't connected.
+ *
+ * So a change costs time in proportion to the blocks it touches rather than
+ * the whole graph. Road maps are mostly a tree of small blocks hanging off a
+ * few big ones, so that's usually small, but closing a segment in the biggest
+ * block still searches all of that block.
+ */
+public class IncrementalArticulationPoints {
+	private final RoadNetwork graph;
+	private final boolean[] closed;
+	// the two ends of every segment, or -1 for loops.
+	private final int[] ends;
+
+	// the block of each open segment (-1 for closed segments and loops), and
+	// the segments in each block. blocks that are split or joined are
+	// replaced by new ones, leaving a null behind, and the new ones reuse
+	// those slots so the lists don't grow with every change.
+	private final int[] block;
+	private final List<int[]> blocks = new ArrayList<int[]>();
+	private int blockCount;
+	private int[] freeBlocks = new int[16];
+	private int freeCount;
+
+	private final boolean[] isAP, isBridge;
+	private int count, bridgeCount;
+	// connected components, counting nodes with no open segments.
+	private int connectedCount;
+	// how long the first full search took.
+	private final long nanos;
+	// the nodes the last change made or unmade articulation points.
+	private int[] changed = new int[16];
+	private int changedCount;
+
+	// search state, kept between changes. a node has been seen by the
+	// current search if its stamp is the current generation, and likewise a
+	// block.
+	private int generation;
+	private final int[] stamp, depth, reachBack, parentEdge, nextEdge, fringe;
+	private final int[] edgeStack;
+	// for the block-cut tree search: the block each node was reached through,
+	// and the node each block was reached from.
+	private final int[] viaBlock;
+	private int[] blockStamp = new int[0], viaNode = new int[0];
+
+	/**
+	 * Starts with every segment open, from a full ArticulationPoints search
+	 * with its connected components searched in parallel.
+	 */
+	public IncrementalArticulationPoints(RoadNetwork graph) {
+		this.graph = graph;
+		int n = graph.size(), m = graph.segmentCount();
+		closed = new boolean[m];
+		ends = new int[2 * m];
+		Arrays.fill(ends, -1);
+		for (int v = 0; v < n; v++) {
+			for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+				int s = graph.adjSegment(e);
+				ends[2 * s] = v;
+				ends[2 * s + 1] = graph.adjTarget(e);
+			}
+		}
+
+		ArticulationPoints ap = new ArticulationPoints(graph);
+		ap.findAPs(true);
+		nanos = ap.nanos();
+		connectedCount = ap.connectedCount();
+		block = new int[m];
+		Arrays.fill(block, -1);
+		int[] sizes = new int[ap.componentCount()];
+		for (int s = 0; s < m; s++)
+			if (ap.component(s) >= 0)
+				sizes[ap.component(s)]++;
+		int[][] members = new int[sizes.length][];
+		for (int b = 0; b < members.length; b++)
+			members[b] = new int[sizes[b]];
+		Arrays.fill(sizes, 0);
+		for (int s = 0; s < m; s++)
+			if (ap.component(s) >= 0)
+				members[ap.component(s)][sizes[ap.component(s)]++] = s;
+		isAP = new boolean[n];
+		isBridge = new boolean[m];
+		for (int[] segments : members)
+			newBlock(segments);
+		for (int v : ap.getAPS())
+			isAP[v] = true;
+		count = ap.count();
+
+		stamp = new int[n];
+		depth = new int[n];
+		reachBack = new int[n];
+		parentEdge = new int[n];
+		nextEdge = new int[n];
+		fringe = new int[n];
+		viaBlock = new int[n];
+		edgeStack = new int[m];
+	}
+
+	public boolean isClosed(int segment) {
+		return closed[segment];
+	}
+
+	/**
+	 * A copy of which segments are closed, by segment index, eg. for a full
+	 * ArticulationPoints search.
+	 */
+	public boolean[] closedSegments() {
+		return Arrays.copyOf(closed, closed.length);
+	}
+
+	public boolean isAP(int node) {
+		return isAP[node];
+	}
+
+	public boolean isBridge(int segment) {
+		return isBridge[segment];
+	}
+
+	public int count() {
+		return count;
+	}
+
+	public int bridgeCount() {
+		return bridgeCount;
+	}
+
+	public int blockCount() {
+		return blockCount;
+	}
+
+	public int connectedCount() {
+		return connectedCount;
+	}
+
+	/**
+	 * How long the full search this started from took, in nanoseconds.
+	 */
+	public long nanos() {
+		return nanos;
+	}
+
+	/**
+	 * The indices of the articulation points, in index order.
+	 */
+	public int[] getAPS() {
+		int[] points = new int[count];
+		for (int v = 0, i = 0; i < count; v++)
+			if (isAP[v])
+				points[i++] = v;
+		return points;
+	}
+
+	/**
+	 * The indices of the segments that are bridges, in index order.
+	 */
+	public int[] getBridges() {
+		int[] bridges = new int[bridgeCount];
+		for (int s = 0, i = 0; i < bridgeCount; s++)
+			if (isBridge[s])
+				bridges[i++] = s;
+		return bridges;
+	}
+
+	/**
+	 * The nodes that the last close or reopen made into articulation points
+	 * or stopped being articulation points.
+	 */
+	public int[] changed() {
+		return Arrays.copyOf(changed, changedCount);
+	}
+
+	/**
+	 * Closes a segment, returning false if it was already closed.
+	 */
+	public boolean close(int segment) {
+		if (closed[segment])
+			return false;
+		closed[segment] = true;
+		changedCount = 0;
+		int b = block[segment];
+		if (b < 0)
+			return true; // a loop, which doesn't connect anything.
+
+		int[] old = blocks.get(b);
+		block[segment] = -1;
+		if (isBridge[segment]) {
+			// nothing else joins its ends, so they come apart.
+			isBridge[segment] = false;
+			bridgeCount--;
+			connectedCount++;
+		} else {
+			// the rest of the block is still connected, so it can all be
+			// searched from one end of the closed segment. b is only freed
+			// afterwards, as the search tells its segments apart by it.
+			split(b, ends[2 * segment]);
+		}
+		freeBlock(b);
+		for (int s : old) {
+			recount(ends[2 * s]);
+			recount(ends[2 * s + 1]);
+		}
+		return true;
+	}
+
+	/**
+	 * Reopens a closed segment, returning false if it wasn't closed.
+	 */
+	public boolean reopen(int segment) {
+		if (!closed[segment])
+			return false;
+		closed[segment] = false;
+		changedCount = 0;
+		int u = ends[2 * segment], v = ends[2 * segment + 1];
+		if (u < 0)
+			return true;
+
+		int shared = sharedBlock(u, v);
+		if (shared >= 0) {
+			// the ends are already in one block, which this just adds to.
+			int[] old = blocks.get(shared);
+			if (old.length == 1) {
+				isBridge[old[0]] = false;
+				bridgeCount--;
+			}
+			int[] segments = Arrays.copyOf(old, old.length + 1);
+			segments[old.length] = segment;
+			blocks.set(shared, segments);
+			block[segment] = shared;
+			return true;
+		}
+
+		int[] path = blockPath(u, v);
+		if (path == null) {
+			// the ends weren't connected, so this joins their components.
+			newBlock(new int[] { segment });
+			connectedCount--;
+		} else {
+			// the segment closes a cycle through every block on the path,
+			// so they become one block.
+			int size = 1;
+			for (int b : path)
+				size += blocks.get(b).length;
+			int[] segments = new int[size];
+			segments[0] = segment;
+			size = 1;
+			for (int b : path) {
+				int[] old = blocks.get(b);
+				if (old.length == 1) {
+					isBridge[old[0]] = false;
+					bridgeCount--;
+				}
+				System.arraycopy(old, 0, segments, size, old.length);
+				size += old.length;
+				freeBlock(b);
+			}
+			newBlock(segments);
+			// the nodes joining blocks on the path may now be in just one.
+			for (int b : path)
+				recount(viaNode[b]);
+		}
+		recount(u);
+		recount(v);
+		return true;
+	}
+
+	/**
+	 * Adds a block made of the given segments.
+	 */
+	private void newBlock(int[] segments) {
+		int b;
+		if (freeCount > 0) {
+			b = freeBlocks[--freeCount];
+			blocks.set(b, segments);
+		} else {
+			b = blocks.size();
+			blocks.add(segments);
+		}
+		blockCount++;
+		for (int s : segments)
+			block[s] = b;
+		if (segments.length == 1) {
+			isBridge[segments[0]] = true;
+			bridgeCount++;
+		}
+		if (b >= blockStamp.length) {
+			blockStamp = Arrays.copyOf(blockStamp, 2 * b + 16);
+			viaNode = Arrays.copyOf(viaNode, 2 * b + 16);
+		}
+	}
+
+	/**
+	 * Removes block b, leaving its slot for the next new block.
+	 */
+	private void freeBlock(int b) {
+		blocks.set(b, null);
+		blockCount--;
+		if (freeCount == freeBlocks.length)
+			freeBlocks = Arrays.copyOf(freeBlocks, 2 * freeCount);
+		freeBlocks[freeCount++] = b;
+	}
+
+	/**
+	 * The number of block slots in use or free, which is at most the number
+	 * of blocks there have been at once.
+	 */
+	int blockSlots() {
+		return blocks.size();
+	}
+
+	/**
+	 * Works out whether a node is an articulation point from the blocks of
+	 * its open segments, noting it if that's changed.
+	 */
+	private void recount(int v) {
+		int first = -1;
+		boolean cut = false;
+		for (int e = graph.firstAdj(v); e < graph.endAdj(v) && !cut; e++) {
+			int b = block[graph.adjSegment(e)];
+			if (b < 0)
+				continue;
+			if (first < 0)
+				first = b;
+			else
+				cut = b != first;
+		}
+		if (cut == isAP[v])
+			return;
+		isAP[v] = cut;
+		count += cut ? 1 : -1;
+		if (changedCount == changed.length)
+			changed = Arrays.copyOf(changed, 2 * changedCount);
+		changed[changedCount++] = v;
+	}
+
+	/**
+	 * Finds a block both nodes are in, or returns -1.
+	 */
+	private int sharedBlock(int u, int v) {
+		for (int e = graph.firstAdj(u); e < graph.endAdj(u); e++) {
+			int b = block[graph.adjSegment(e)];
+			if (b < 0)
+				continue;
+			for (int f = graph.firstAdj(v); f < graph.endAdj(v); f++)
+				if (block[graph.adjSegment(f)] == b)
+					return b;
+		}
+		return -1;
+	}
+
+	/**
+	 * Searches the block-cut tree breadth first from u, returning the blocks
+	 * on the path to v, or null if v can't be reached. viaNode is left
+	 * holding the node each block on the path was entered from.
+	 */
+	private int[] blockPath(int u, int v) {
+		generation++;
+		int head = 0, tail = 0;
+		stamp[u] = generation;
+		fringe[tail++] = u;
+		while (head < tail) {
+			int x = fringe[head++];
+			for (int e = graph.firstAdj(x); e < graph.endAdj(x); e++) {
+				int b = block[graph.adjSegment(e)];
+				if (b < 0 || blockStamp[b] == generation)
+					continue;
+				blockStamp[b] = generation;
+				viaNode[b] = x;
+				for (int s : blocks.get(b)) {
+					for (int end = 2 * s; end <= 2 * s + 1; end++) {
+						int y = ends[end];
+						if (stamp[y] == generation)
+							continue;
+						stamp[y] = generation;
+						viaBlock[y] = b;
+						if (y == v)
+							return path(u, v);
+						fringe[tail++] = y;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private int[] path(int u, int v) {
+		int length = 0;
+		for (int x = v; x != u; x = viaNode[viaBlock[x]])
+			length++;
+		int[] path = new int[length];
+		for (int x = v; x != u; x = viaNode[viaBlock[x]])
+			path[--length] = viaBlock[x];
+		return path;
+	}
+
+	/**
+	 * Splits what's left of block b into new blocks, with the same depth
+	 * first search as ArticulationPoints but only following b's segments.
+	 */
+	private void split(int b, int root) {
+		generation++;
+		int size = 0, stacked = 0;
+		stamp[root] = generation;
+		depth[root] = 0;
+		reachBack[root] = 0;
+		parentEdge[root] = -1;
+		nextEdge[root] = graph.firstAdj(root);
+		fringe[size++] = root;
+
+		while (size > 0) {
+			int current = fringe[size - 1];
+			if (nextEdge[current] < graph.endAdj(current)) {
+				int e = nextEdge[current]++;
+				int segment = graph.adjSegment(e);
+				// segments already put in a new block are finished with.
+				if (block[segment] != b || (parentEdge[current] >= 0
+						&& segment == graph.adjSegment(parentEdge[current])))
+					continue;
+				int child = graph.adjTarget(e);
+				if (stamp[child] == generation) {
+					if (depth[child] < depth[current]) {
+						edgeStack[stacked++] = segment;
+						reachBack[current] = Math.min(reachBack[current], depth[child]);
+					}
+				} else {
+					edgeStack[stacked++] = segment;
+					stamp[child] = generation;
+					depth[child] = depth[current] + 1;
+					reachBack[child] = depth[child];
+					parentEdge[child] = e;
+					nextEdge[child] = graph.firstAdj(child);
+					fringe[size++] = child;
+				}
+			} else {
+				size--;
+				if (current == root)
+					continue;
+				int p = fringe[size - 1];
+				reachBack[p] = Math.min(reachBack[current], reachBack[p]);
+				if (reachBack[current] >= depth[p]) {
+					int treeSegment = graph.adjSegment(parentEdge[current]);
+					int from = stacked;
+					do {
+						from--;
+					} while (edgeStack[from] != treeSegment);
+					newBlock(Arrays.copyOfRange(edgeStack, from, stacked));
+					stacked = from;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package journeyplanner;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap over the integers 0..capacity-1, each with a double key,
+ * that supports decrease-key. Everything lives in primitive arrays that are
+ * allocated once, so pushing and popping never allocate. Each item's position
+ * in the heap is tracked so that its key can be lowered in place rather than
+ * pushing a duplicate entry.
+ */
+public class IndexedHeap {
+	private final int[] heap;
+	private final double[] keys;
+	// where each item is in the heap, or -1 if it isn't in the heap.
+	private final int[] pos;
+	private int size = 0;
+
+	public IndexedHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new double[capacity];
+		pos = new int[capacity];
+		Arrays.fill(pos, -1);
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int item) {
+		return pos[item] >= 0;
+	}
+
+	/**
+	 * Returns the smallest key in the heap, or infinity if it is empty.
+	 */
+	public double minKey() {
+		return size == 0 ? Double.POSITIVE_INFINITY : keys[heap[0]];
+	}
+
+	/**
+	 * Adds the item with the given key, or lowers its key if it's already in
+	 * the heap with a larger one.
+	 */
+	public void insertOrDecrease(int item, double key) {
+		int i = pos[item];
+		if (i < 0) {
+			i = size++;
+			heap[i] = item;
+			pos[item] = i;
+		} else if (key >= keys[item]) {
+			return;
+		}
+		keys[item] = key;
+		siftUp(i);
+	}
+
+	/**
+	 * Adds the item with the given key, or changes its key to the given one,
+	 * up or down, if it's already in the heap.
+	 */
+	public void update(int item, double key) {
+		int i = pos[item];
+		if (i < 0 || key < keys[item]) {
+			insertOrDecrease(item, key);
+		} else if (key > keys[item]) {
+			keys[item] = key;
+			siftDown(i);
+		}
+	}
+
+	/**
+	 * Removes and returns the item with the smallest key.
+	 */
+	public int poll() {
+		int top = heap[0];
+		pos[top] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			pos[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Empties the heap. This only touches the items still in it, so it is cheap
+	 * at the end of a search.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			pos[heap[i]] = -1;
+		size = 0;
+	}
+
+	private void siftUp(int i) {
+		int item = heap[i];
+		double key = keys[item];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int p = heap[parent];
+			if (keys[p] <= key)
+				break;
+			heap[i] = p;
+			pos[p] = i;
+			i = parent;
+		}
+		heap[i] = item;
+		pos[item] = i;
+	}
+
+	private void siftDown(int i) {
+		int item = heap[i];
+		double key = keys[item];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int c = heap[child];
+			int right = child + 1;
+			if (right < size && keys[heap[right]] < keys[c]) {
+				child = right;
+				c = heap[child];
+			}
+			if (key <= keys[c])
+				break;
+			heap[i] = c;
+			pos[c] = i;
+			i = child;
+		}
+		heap[i] = item;
+		pos[item] = i;
+	}
+}
@@ -0,0 +1,218 @@
+package journeyplanner;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A static 2-d tree over the node locations of a RoadNetwork, for finding the
+ * nodes nearest a point (such as a mouse click), or inside a rectangle (such
+ * as the screen), without looking at every node.
+ *
+ * The tree is implicit: the node indices are reordered so that, for any range
+ * lo..hi of the arrays, the middle element splits the rest by x (at even
+ * depths) or y (at odd depths), with the lower half on the left. Coordinates
+ * are copied into the same order so a query only walks contiguous arrays.
+ */
+public class KdTree {
+	private final int[] nodes;
+	private final double[] xs, ys;
+
+	public KdTree(RoadNetwork graph) {
+		int n = graph.size();
+		nodes = new int[n];
+		xs = new double[n];
+		ys = new double[n];
+		for (int v = 0; v < n; v++) {
+			nodes[v] = v;
+			xs[v] = graph.x(v);
+			ys[v] = graph.y(v);
+		}
+		build(0, n, 0);
+	}
+
+	public int size() {
+		return nodes.length;
+	}
+
+	private void build(int lo, int hi, int depth) {
+		if (hi - lo <= 1)
+			return;
+		int mid = (lo + hi) >>> 1;
+		select(lo, hi - 1, mid, depth % 2 == 0);
+		build(lo, mid, depth + 1);
+		build(mid + 1, hi, depth + 1);
+	}
+
+	/**
+	 * Rearranges lo..hi (inclusive) so that the k-th element is where it
+	 * would be if sorted on the given axis, with nothing larger before it and
+	 * nothing smaller after it.
+	 */
+	private void select(int lo, int hi, int k, boolean byX) {
+		double[] keys = byX ? xs : ys;
+		while (lo < hi) {
+			double pivot = keys[(lo + hi) >>> 1];
+			int i = lo, j = hi;
+			while (i <= j) {
+				while (keys[i] < pivot)
+					i++;
+				while (keys[j] > pivot)
+					j--;
+				if (i <= j)
+					swap(i++, j--);
+			}
+			if (k <= j)
+				hi = j;
+			else if (k >= i)
+				lo = i;
+			else
+				return;
+		}
+	}
+
+	private void swap(int i, int j) {
+		int n = nodes[i];
+		nodes[i] = nodes[j];
+		nodes[j] = n;
+		double x = xs[i];
+		xs[i] = xs[j];
+		xs[j] = x;
+		double y = ys[i];
+		ys[i] = ys[j];
+		ys[j] = y;
+	}
+
+	// ---- range ----
+
+	/**
+	 * Calls the visitor with the index of every node inside the given
+	 * rectangle.
+	 */
+	public void range(double x0, double y0, double x1, double y1,
+			IntConsumer visitor) {
+		range(0, nodes.length, 0, x0, y0, x1, y1, visitor);
+	}
+
+	private void range(int lo, int hi, int depth, double x0, double y0,
+			double x1, double y1, IntConsumer visitor) {
+		if (lo >= hi)
+			return;
+		int mid = (lo + hi) >>> 1;
+		double x = xs[mid], y = ys[mid];
+		if (x >= x0 && x <= x1 && y >= y0 && y <= y1)
+			visitor.accept(nodes[mid]);
+		double split = depth % 2 == 0 ? x : y;
+		double low = depth % 2 == 0 ? x0 : y0;
+		double high = depth % 2 == 0 ? x1 : y1;
+		if (low <= split)
+			range(lo, mid, depth + 1, x0, y0, x1, y1, visitor);
+		if (high >= split)
+			range(mid + 1, hi, depth + 1, x0, y0, x1, y1, visitor);
+	}
+
+	// ---- nearest neighbour ----
+
+	/**
+	 * Returns the index of the node nearest the given location, or -1 if the
+	 * tree is empty.
+	 */
+	public int nearest(double x, double y) {
+		int[] result = nearest(x, y, 1);
+		return result.length == 0 ? -1 : result[0];
+	}
+
+	/**
+	 * Returns the indices of the k nodes nearest the given location, nearest
+	 * first. There are fewer if the tree holds fewer than k nodes.
+	 */
+	public int[] nearest(double x, double y, int k) {
+		Candidates best = new Candidates(Math.min(k, nodes.length));
+		search(0, nodes.length, 0, x, y, best);
+		return best.sorted();
+	}
+
+	private void search(int lo, int hi, int depth, double x, double y,
+			Candidates best) {
+		if (lo >= hi)
+			return;
+		int mid = (lo + hi) >>> 1;
+		double dx = xs[mid] - x, dy = ys[mid] - y;
+		best.offer(nodes[mid], dx * dx + dy * dy);
+
+		// search the side the point is on first, and only search the other
+		// side if the splitting line is closer than the worst candidate.
+		double split = depth % 2 == 0 ? dx : dy;
+		if (split > 0) {
+			search(lo, mid, depth + 1, x, y, best);
+			if (split * split < best.worst())
+				search(mid + 1, hi, depth + 1, x, y, best);
+		} else {
+			search(mid + 1, hi, depth + 1, x, y, best);
+			if (split * split < best.worst())
+				search(lo, mid, depth + 1, x, y, best);
+		}
+	}
+
+	/**
+	 * The best k candidates found so far, kept as a max-heap on squared
+	 * distance so the worst can be replaced cheaply.
+	 */
+	private static class Candidates {
+		final int[] nodes;
+		final double[] dists;
+		int size = 0;
+
+		Candidates(int k) {
+			nodes = new int[k];
+			dists = new double[k];
+		}
+
+		double worst() {
+			return size < nodes.length ? Double.POSITIVE_INFINITY : dists[0];
+		}
+
+		void offer(int node, double dist) {
+			if (nodes.length == 0)
+				return;
+			if (size < nodes.length) {
+				int i = size++;
+				while (i > 0 && dists[(i - 1) / 2] < dist) {
+					nodes[i] = nodes[(i - 1) / 2];
+					dists[i] = dists[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				nodes[i] = node;
+				dists[i] = dist;
+			} else if (dist < dists[0]) {
+				siftDown(node, dist, size);
+			}
+		}
+
+		private void siftDown(int node, double dist, int n) {
+			int i = 0;
+			while (2 * i + 1 < n) {
+				int child = 2 * i + 1;
+				if (child + 1 < n && dists[child + 1] > dists[child])
+					child++;
+				if (dists[child] <= dist)
+					break;
+				nodes[i] = nodes[child];
+				dists[i] = dists[child];
+				i = child;
+			}
+			nodes[i] = node;
+			dists[i] = dist;
+		}
+
+		/**
+		 * Empties the heap into an array, nearest first.
+		 */
+		int[] sorted() {
+			int[] result = new int[size];
+			for (int n = size; n > 0; n--) {
+				result[n - 1] = nodes[0];
+				siftDown(nodes[n - 1], dists[n - 1], n - 1);
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package journeyplanner;
+
+/**
+ * The ALT heuristic: the best lower bound any landmark gives by the triangle
+ * inequality, or the straight line bound if that is better. Both are
+ * consistent, so their maximum is too.
+ */
+public class LandmarkHeuristic implements Heuristic {
+	private final RoadNetwork graph;
+	private final Landmarks landmarks;
+	private final double costPerKm;
+	// the target's distances from and to each landmark.
+	private final double[] fromTarget, toTarget;
+	private int target;
+
+	public LandmarkHeuristic(RoadNetwork graph, Landmarks landmarks) {
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.costPerKm = graph.minCostPerKm(landmarks.profile());
+		this.fromTarget = new double[landmarks.count()];
+		this.toTarget = new double[landmarks.count()];
+	}
+
+	@Override
+	public void target(int target) {
+		this.target = target;
+		for (int i = 0; i < landmarks.count(); i++) {
+			fromTarget[i] = landmarks.from(i, target);
+			toTarget[i] = landmarks.to(i, target);
+		}
+	}
+
+	@Override
+	public double estimate(int node) {
+		double best = graph.distance(node, target) * costPerKm;
+		for (int i = 0; i < fromTarget.length; i++) {
+			// d(v, t) >= d(L, t) - d(L, v), when L reaches both.
+			double fromNode = landmarks.from(i, node);
+			if (fromNode != Double.POSITIVE_INFINITY
+					&& fromTarget[i] != Double.POSITIVE_INFINITY)
+				best = Math.max(best, fromTarget[i] - fromNode);
+			// d(v, t) >= d(v, L) - d(t, L), when both reach L.
+			double toNode = landmarks.to(i, node);
+			if (toNode != Double.POSITIVE_INFINITY
+					&& toTarget[i] != Double.POSITIVE_INFINITY)
+				best = Math.max(best, toNode - toTarget[i]);
+		}
+		return best;
+	}
+}
@@ -0,0 +1,283 @@
+package journeyplanner;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed landmark distances for ALT (A*, Landmarks, Triangle inequality)
+ * routing. A handful of landmark nodes are chosen, and the shortest distance
+ * from each landmark to every node, and from every node to each landmark, are
+ * stored. By the triangle inequality, for any landmark L,
+ *
+ * d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L)
+ *
+ * which gives a lower bound that follows the roads around the harbour rather
+ * than cutting straight across it. See LandmarkHeuristic.
+ *
+ * Distances are costs under one RouteProfile. Landmarks are chosen on the
+ * undirected graph by length, then the directed distance
+ * tables are filled in with one Dijkstra run per landmark and direction, all
+ * in parallel. The tables are stored node by node (the distances of node v
+ * are at v * count() to v * count() + count() - 1) so that the heuristic reads
+ * them from one place.
+ */
+public class Landmarks {
+
+	/**
+	 * How landmarks are chosen.
+	 */
+	public enum Strategy {
+		/**
+		 * Each new landmark is the node furthest from all those chosen so far.
+		 */
+		FARTHEST,
+		/**
+		 * Each new landmark is at the end of the branch of a shortest path tree
+		 * that the landmarks so far give the worst bounds for.
+		 */
+		AVOID
+	}
+
+	// which way a Dijkstra run follows the edges.
+	private static final int FORWARD = 0, BACKWARD = 1, UNDIRECTED = 2;
+
+	private final RoadNetwork graph;
+	private final RouteProfile profile;
+	private final int[] landmarks;
+	// d(L, v) and d(v, L), by node then landmark.
+	private final double[] from, to;
+	// how long choosing the landmarks and filling in the tables took.
+	private final long nanos;
+
+	public Landmarks(RoadNetwork graph, RouteProfile profile, int count,
+			Strategy strategy) {
+		this.graph = graph;
+		this.profile = profile;
+		long begin = System.nanoTime();
+		int n = graph.size();
+		count = Math.min(count, n);
+		landmarks = strategy == Strategy.FARTHEST ? farthest(count) : avoid(count);
+
+		int k = landmarks.length;
+		from = new double[n * k];
+		to = new double[n * k];
+		IntStream.range(0, 2 * k).parallel().forEach(run -> {
+			int i = run / 2;
+			if (run % 2 == 0)
+				dijkstra(landmarks[i], FORWARD, from, k, i);
+			else
+				dijkstra(landmarks[i], BACKWARD, to, k, i);
+		});
+		nanos = System.nanoTime() - begin;
+	}
+
+	public RouteProfile profile() {
+		return profile;
+	}
+
+	public int count() {
+		return landmarks.length;
+	}
+
+	/**
+	 * How long choosing the landmarks and working out their distances took,
+	 * in nanoseconds.
+	 */
+	public long nanos() {
+		return nanos;
+	}
+
+	public int landmark(int i) {
+		return landmarks[i];
+	}
+
+	/**
+	 * The cost from landmark i to node v, or infinity if there's no path.
+	 */
+	public double from(int i, int v) {
+		return from[v * landmarks.length + i];
+	}
+
+	/**
+	 * The cost from node v to landmark i, or infinity if there's no path.
+	 */
+	public double to(int i, int v) {
+		return to[v * landmarks.length + i];
+	}
+
+	private int[] farthest(int count) {
+		int n = graph.size();
+		int[] chosen = new int[count];
+		double[] nearest = new double[n];
+		double[] dist = new double[n];
+		Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+		int next = new Random(261).nextInt(n);
+		for (int c = 0; c < count; c++) {
+			chosen[c] = next;
+			dijkstra(next, UNDIRECTED, dist, 1, 0);
+			// unreachable nodes count as furthest of all, so other islands get
+			// landmarks of their own.
+			next = -1;
+			for (int v = 0; v < n; v++) {
+				nearest[v] = Math.min(nearest[v], dist[v]);
+				if (nearest[v] > 0 && (next < 0 || nearest[v] > nearest[next]))
+					next = v;
+			}
+			if (next < 0)
+				return Arrays.copyOf(chosen, c + 1);
+		}
+		return chosen;
+	}
+
+	private int[] avoid(int count) {
+		int n = graph.size();
+		int[] chosen = new int[count];
+		double[][] tables = new double[count][n];
+		double[] dist = new double[n];
+		int[] parent = new int[n];
+		int[] order = new int[n];
+		double[] size = new double[n];
+		int[] heaviest = new int[n];
+		boolean[] covered = new boolean[n];
+		boolean[] isLandmark = new boolean[n];
+		Random random = new Random(261);
+
+		for (int c = 0; c < count; c++) {
+			int root = random.nextInt(n);
+			int settled = shortestPathTree(root, dist, parent, order);
+			Arrays.fill(size, 0);
+			Arrays.fill(heaviest, -1);
+			Arrays.fill(covered, false);
+
+			// weigh every node by how far the current bound is from the truth,
+			// and sum the weights up the tree, leaves first. subtrees that
+			// already contain a landmark are well covered and count for
+			// nothing.
+			for (int i = settled - 1; i >= 0; i--) {
+				int v = order[i];
+				covered[v] |= isLandmark[v];
+				if (covered[v])
+					size[v] = 0;
+				else
+					size[v] += dist[v] - bound(tables, c, root, v);
+				int p = parent[v];
+				if (p >= 0) {
+					covered[p] |= covered[v];
+					size[p] += size[v];
+					if (heaviest[p] < 0 || size[v] > size[heaviest[p]])
+						heaviest[p] = v;
+				}
+			}
+
+			// walk down the heaviest branch to a leaf.
+			int leaf = root;
+			while (heaviest[leaf] >= 0 && size[heaviest[leaf]] > 0)
+				leaf = heaviest[leaf];
+			// if everything reachable from the root is covered, any node that
+			// isn't a landmark yet will do.
+			while (isLandmark[leaf])
+				leaf = random.nextInt(n);
+
+			chosen[c] = leaf;
+			isLandmark[leaf] = true;
+			dijkstra(leaf, UNDIRECTED, tables[c], 1, 0);
+		}
+		return chosen;
+	}
+
+	/**
+	 * The best lower bound on the distance between root and v that the first
+	 * count undirected landmark tables give.
+	 */
+	private static double bound(double[][] tables, int count, int root, int v) {
+		double bound = 0;
+		for (int l = 0; l < count; l++) {
+			double a = tables[l][v], b = tables[l][root];
+			if (a != Double.POSITIVE_INFINITY && b != Double.POSITIVE_INFINITY)
+				bound = Math.max(bound, Math.abs(a - b));
+		}
+		return bound;
+	}
+
+	/**
+	 * Builds the undirected shortest path tree from root, filling in each
+	 * node's distance and parent, and the order nodes were settled in.
+	 * Returns how many nodes were settled.
+	 */
+	private int shortestPathTree(int root, double[] dist, int[] parent,
+			int[] order) {
+		SearchState state = new SearchState(graph.size());
+		IndexedHeap fringe = new IndexedHeap(graph.size());
+		state.reset();
+		state.reach(root, 0, -1, -1);
+		fringe.insertOrDecrease(root, 0);
+		int settled = 0;
+		while (!fringe.isEmpty()) {
+			int node = fringe.poll();
+			state.settle(node);
+			order[settled++] = node;
+			dist[node] = state.cost(node);
+			parent[node] = state.parentNode(node);
+			for (int e = graph.firstAdj(node); e < graph.endAdj(node); e++) {
+				int next = graph.adjTarget(e);
+				double g = state.cost(node) + graph.segmentLength(graph.adjSegment(e));
+				if (!state.isSettled(next) && g < state.cost(next)) {
+					state.reach(next, g, node, e);
+					fringe.insertOrDecrease(next, g);
+				}
+			}
+		}
+		return settled;
+	}
+
+	/**
+	 * Runs a full Dijkstra search from source, in the given direction, and
+	 * writes the distance of every node v to out[v * stride + offset].
+	 */
+	private void dijkstra(int source, int direction, double[] out, int stride,
+			int offset) {
+		SearchState state = new SearchState(graph.size());
+		IndexedHeap fringe = new IndexedHeap(graph.size());
+		state.reset();
+		state.reach(source, 0, -1, -1);
+		fringe.insertOrDecrease(source, 0);
+		while (!fringe.isEmpty()) {
+			int node = fringe.poll();
+			state.settle(node);
+			double cost = state.cost(node);
+			int first, end;
+			if (direction == FORWARD) {
+				first = graph.firstOut(node);
+				end = graph.endOut(node);
+			} else if (direction == BACKWARD) {
+				first = graph.firstIn(node);
+				end = graph.endIn(node);
+			} else {
+				first = graph.firstAdj(node);
+				end = graph.endAdj(node);
+			}
+			for (int e = first; e < end; e++) {
+				int next;
+				double g;
+				if (direction == FORWARD) {
+					next = graph.outTarget(e);
+					g = cost + graph.outCost(profile, e);
+				} else if (direction == BACKWARD) {
+					next = graph.inSource(e);
+					g = cost + graph.inCost(profile, e);
+				} else {
+					next = graph.adjTarget(e);
+					g = cost + graph.segmentLength(graph.adjSegment(e));
+				}
+				if (!state.isSettled(next) && g < state.cost(next)) {
+					state.reach(next, g, node, e);
+					fringe.insertOrDecrease(next, g);
+				}
+			}
+		}
+		for (int v = 0; v < graph.size(); v++)
+			out[v * stride + offset] = state.cost(v);
+	}
+}
@@ -1,3 +1,5 @@
+package journeyplanner;
+
 import java.awt.Point;
 
 /**
@@ -0,0 +1,140 @@
+package journeyplanner;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+/**
+ * Loads a map in the background, a stage at a time, so the window stays
+ * responsive while a big map loads. After each stage the Listener is told on
+ * the event thread, so the map can be shown as soon as its nodes and
+ * segments are in, and search and routing switched on as their indexes are
+ * finished.
+ *
+ * If there's an up to date GraphSnapshot, the first four stages come from it
+ * at once; otherwise the files are parsed, and a snapshot written after the
+ * adjacency is built.
+ */
+public class MapLoader extends SwingWorker<Void, MapLoader.Stage> {
+
+	/**
+	 * The stages of loading, in order, with roughly how far through loading
+	 * each leaves it, as a percentage.
+	 */
+	public enum Stage {
+		NODES("Reading nodes", 15), ROADS("Reading roads", 20), SEGMENTS(
+				"Reading segments", 60), ADJACENCY("Building adjacency", 75), TRIE(
+				"Indexing road names", 80), SPATIAL_INDEX("Building spatial index", 100);
+
+		public final String description;
+		public final int percent;
+
+		Stage(String description, int percent) {
+			this.description = description;
+			this.percent = percent;
+		}
+	}
+
+	/**
+	 * Is told about the loader's progress, on the event thread.
+	 */
+	public interface Listener {
+		/**
+		 * Called after each stage finishes.
+		 */
+		void stageDone(MapLoader loader, Stage stage);
+
+		/**
+		 * Called if loading fails part way through.
+		 */
+		void loadFailed(MapLoader loader, Exception e);
+	}
+
+	private final File nodeFile, roadFile, segmentFile;
+	private final int searchResults;
+	private final Listener listener;
+	// filled in as loading goes on; the graph as soon as it's drawable.
+	private volatile Graph graph;
+	private volatile RadixTrie trie;
+
+	public MapLoader(File nodes, File roads, File segments, int searchResults,
+			Listener listener) {
+		this.nodeFile = nodes;
+		this.roadFile = roads;
+		this.segmentFile = segments;
+		this.searchResults = searchResults;
+		this.listener = listener;
+	}
+
+	/**
+	 * The graph being loaded, or null before its segments are in.
+	 */
+	public Graph graph() {
+		return graph;
+	}
+
+	/**
+	 * The trie over the graph's road names, or null before Stage.TRIE.
+	 */
+	public RadixTrie trie() {
+		return trie;
+	}
+
+	@Override
+	protected Void doInBackground() {
+		File snapshot = new File(nodeFile.getAbsoluteFile().getParentFile(),
+				GraphSnapshot.FILE_NAME);
+		Graph loaded = GraphSnapshot.read(snapshot, nodeFile, roadFile, segmentFile);
+		if (loaded != null) {
+			graph = loaded;
+			publish(Stage.NODES, Stage.ROADS, Stage.SEGMENTS, Stage.ADJACENCY);
+		} else {
+			loaded = new Graph();
+			loaded.readNodes(nodeFile);
+			publish(Stage.NODES);
+			loaded.readRoads(roadFile);
+			publish(Stage.ROADS);
+			loaded.readSegments(segmentFile);
+			graph = loaded;
+			publish(Stage.SEGMENTS);
+			loaded.buildAdjacency();
+			GraphSnapshot.write(loaded, snapshot, nodeFile, roadFile, segmentFile);
+			publish(Stage.ADJACENCY);
+		}
+		if (isCancelled())
+			return null;
+
+		trie = new RadixTrie(loaded.roads.values(), searchResults,
+				RadixTrie.Ranking.CLASS);
+		publish(Stage.TRIE);
+		if (isCancelled())
+			return null;
+		loaded.buildSpatialIndexes();
+		publish(Stage.SPATIAL_INDEX);
+		return null;
+	}
+
+	@Override
+	protected void process(List<Stage> stages) {
+		if (isCancelled())
+			return;
+		for (Stage stage : stages)
+			listener.stageDone(this, stage);
+	}
+
+	@Override
+	protected void done() {
+		if (isCancelled())
+			return;
+		try {
+			get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			listener.loadFailed(this, cause instanceof Exception ? (Exception) cause : e);
+		}
+	}
+}
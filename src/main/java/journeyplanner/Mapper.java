@@ -0,0 +1,374 @@
+package journeyplanner;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.Collection;
+import java.util.HashSet;
+
+/**
+ * This is the main class for the mapping program. It extends the GUI abstract
+ * class and implements all the methods necessary, as well as having a main
+ * function.
+ * 
+ * @author tony
+ */
+public class Mapper extends GUI implements MapLoader.Listener {
+	public static final Color NODE_COLOUR = new Color(77, 113, 255);
+	public static final Color SEGMENT_COLOUR = new Color(130, 130, 130);
+	public static final Color HIGHLIGHT_COLOUR = new Color(255, 219, 77);
+	public static final Color CLOSED_COLOUR = new Color(230, 60, 60);
+
+	// these two constants define the size of the node squares at different zoom
+	// levels; the equation used is node size = NODE_INTERCEPT + NODE_GRADIENT *
+	// log(scale)
+	public static final int NODE_INTERCEPT = 1;
+	public static final double NODE_GRADIENT = 0.8;
+
+	// defines how much you move per button press, and is dependent on scale.
+	public static final double MOVE_AMOUNT = 100;
+	// defines how much you zoom in/out per button press, and the maximum and
+	// minimum zoom levels.
+	public static final double ZOOM_FACTOR = 1.3;
+	public static final double MIN_ZOOM = 1, MAX_ZOOM = 200;
+
+	// how far away from a node you can click before it isn't counted.
+	public static final double MAX_CLICKED_DISTANCE = 0.15;
+
+	// how many of the roads matching a search to show, best first.
+	public static final int SEARCH_RESULTS = 20;
+
+	// these two define the 'view' of the program, ie. where you're looking and
+	// how zoomed in you are.
+	private Location origin;
+	private double scale;
+
+	// our data structures.
+	private Graph graph;
+	private SearchSession roadSearch;
+	private TileRenderer tiles;
+	// the map being loaded, if any.
+	private MapLoader loader;
+	
+	private Node startNode = null;
+	private Node targetNode = null;
+	// the last route found, which is drawn until something else is selected.
+	private RouteResult route;
+	
+	private RouteService routes;
+	// whether the highlights are the articulation points and bridges, which
+	// are then kept up to date as segments are closed and reopened.
+	private boolean showingAPs;
+		
+	@Override
+	protected void redraw(Graphics g) {
+		if (graph != null) {
+			// the network comes from the tile cache, and only the highlights
+			// are drawn fresh each time.
+			tiles.draw(g, getDrawingAreaDimension(), origin, scale);
+			graph.drawHighlights(g, getDrawingAreaDimension(), origin, scale);
+			if (route != null)
+				graph.drawRoute(g, getDrawingAreaDimension(), origin, scale, route);
+		}
+	}
+
+	@Override
+	protected void onClick(MouseEvent e) {
+		// nodes can't be found by location until the spatial index is built.
+		if (graph == null || graph.nodeIndex == null)
+			return;
+		Location clicked = Location.newFromPoint(e.getPoint(), origin, scale);
+		if (isClosingRoads()) {
+			toggleSegment(clicked);
+			return;
+		}
+		clearHighlights();
+		redraw();
+		// find the closest node.
+		int nearest = graph.nodeIndex.nearest(clicked.x, clicked.y);
+		if (nearest < 0)
+			return;
+		Node closest = graph.compact.node(nearest);
+
+		// if it's close enough, highlight it and show some information.
+		if (clicked.distance(closest.location) < MAX_CLICKED_DISTANCE) {
+			Collection <Node> sn = new HashSet<Node>();
+			sn.add(closest);
+			graph.setHighlightNodes(sn);
+			getTextOutputArea().setText(closest.toString());
+		}
+		
+		if(startNode != null && targetNode != null){
+			startNode = targetNode;
+			targetNode = closest;
+		}
+		else if(targetNode == null && startNode != null){
+			targetNode = closest;
+		}
+		else if(startNode == null){
+			startNode = closest;
+			redraw();
+		}
+		
+	}
+
+	@Override
+	protected void onSearch() {
+		if (roadSearch == null)
+			return;
+
+		// the query runs in the background, and the highlighting is done
+		// when (and if) its result comes back.
+		roadSearch.search(getSearchBox().getText(), result -> {
+			clearHighlights();
+			graph.setHighlightRoads(result.roads);
+			getTextOutputArea().setText(result.text);
+			redraw();
+		});
+	}
+
+	@Override
+	protected void onMove(Move m) {
+		if (m == GUI.Move.NORTH) {
+			origin = origin.moveBy(0, MOVE_AMOUNT / scale);
+		} else if (m == GUI.Move.SOUTH) {
+			origin = origin.moveBy(0, -MOVE_AMOUNT / scale);
+		} else if (m == GUI.Move.EAST) {
+			origin = origin.moveBy(MOVE_AMOUNT / scale, 0);
+		} else if (m == GUI.Move.WEST) {
+			origin = origin.moveBy(-MOVE_AMOUNT / scale, 0);
+		} else if (m == GUI.Move.ZOOM_IN) {
+			if (scale < MAX_ZOOM) {
+				// yes, this does allow you to go slightly over/under the
+				// max/min scale, but it means that we always zoom exactly to
+				// the centre.
+				scaleOrigin(true);
+				scale *= ZOOM_FACTOR;
+			}
+		} else if (m == GUI.Move.ZOOM_OUT) {
+			if (scale > MIN_ZOOM) {
+				scaleOrigin(false);
+				scale /= ZOOM_FACTOR;
+			}
+		}
+	}
+
+	@Override
+	protected void onLoad(File nodes, File roads, File segments, File polygons) {
+		// the map loads in the background, and each part of the GUI is
+		// switched on in stageDone once what it needs has loaded. a load
+		// that's still going is left to finish, but ignored.
+		if (loader != null)
+			loader.cancel(false);
+		setSearchEnabled(false);
+		setRoutingEnabled(false);
+		setAPointsEnabled(false);
+		getProgressBar().setValue(0);
+		getProgressBar().setString("Loading...");
+		getProgressBar().setVisible(true);
+		loader = new MapLoader(nodes, roads, segments, SEARCH_RESULTS, this);
+		loader.execute();
+	}
+
+	@Override
+	public void stageDone(MapLoader loader, MapLoader.Stage stage) {
+		if (loader != this.loader)
+			return;
+		getProgressBar().setValue(stage.percent);
+		getProgressBar().setString(stage.description + "...");
+		switch (stage) {
+		case SEGMENTS:
+			// there's enough to draw the map now, so show it.
+			graph = loader.graph();
+			if (tiles != null)
+				tiles.shutdown();
+			tiles = new TileRenderer(graph, this::redraw);
+			route = null;
+			startNode = null;
+			targetNode = null;
+			origin = new Location(-250, 250); // close enough
+			scale = 1;
+			redraw();
+			break;
+		case ADJACENCY:
+			routes = new RouteService(graph);
+			setAPointsEnabled(true);
+			break;
+		case TRIE:
+			if (roadSearch != null)
+				roadSearch.shutdown();
+			roadSearch = new SearchSession(loader.trie(), graph.roads);
+			setSearchEnabled(true);
+			break;
+		case SPATIAL_INDEX:
+			// clicking on nodes needs the spatial index, and routing needs
+			// clicked nodes.
+			setRoutingEnabled(true);
+			getProgressBar().setVisible(false);
+			this.loader = null;
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void loadFailed(MapLoader loader, Exception e) {
+		if (loader != this.loader)
+			return;
+		getProgressBar().setVisible(false);
+		getTextOutputArea().setText("Loading the map failed: " + e);
+		this.loader = null;
+	}
+
+	/**
+	 * This method does the nasty logic of making sure we always zoom into/out
+	 * of the centre of the screen. It assumes that scale has just been updated
+	 * to be either scale * ZOOM_FACTOR (zooming in) or scale / ZOOM_FACTOR
+	 * (zooming out). The passed boolean should correspond to this, ie. be true
+	 * if the scale was just increased.
+	 */
+	private void scaleOrigin(boolean zoomIn) {
+		Dimension area = getDrawingAreaDimension();
+		double zoom = zoomIn ? 1 / ZOOM_FACTOR : ZOOM_FACTOR;
+
+		int dx = (int) ((area.width - (area.width * zoom)) / 2);
+		int dy = (int) ((area.height - (area.height * zoom)) / 2);
+
+		origin = Location.newFromPoint(new Point(dx, dy), origin, scale);
+	}
+
+	public static void main(String[] args) {
+		new Mapper();
+	}
+
+	@Override
+	protected void onAStar() {	
+		printAStar();
+	}
+	
+	/**
+	 * Routes from the start node to the target node with the algorithm and
+	 * profile selected in the GUI, and returns the route found.
+	 */
+	public RouteResult searchAStar() {
+		redraw();
+		if ((startNode == null || targetNode == null) || 
+			(startNode == null && targetNode == null)) {
+			System.err.println("Empty search, try again.");
+			return null;
+		}
+		return routes.route(startNode.getID(), targetNode.getID(), getAlgorithm(), getProfile());
+	}
+	
+	public void printAStar(){
+		clearHighlights();
+		RouteResult route = searchAStar();
+		if(route == null){
+			return;
+		}
+		this.route = route;
+		getTextOutputArea().setText(route.itinerary() + getAlgorithm() + " settled " 
+									+ route.settledNodes + " nodes in " + String.format("%.2f", route.nanos / 1e6) + "ms."
+									+ preprocessing());
+		
+		this.startNode = null; //clear start and target nodes.
+		this.targetNode = null;
+		redraw();
+	}
+
+	/**
+	 * Describes the preprocessing the selected algorithm routed with, which
+	 * was built by the first query that needed it.
+	 */
+	private String preprocessing() {
+		switch (getAlgorithm()) {
+		case CONTRACTION_HIERARCHY:
+			ContractionHierarchy ch = routes.hierarchy(getProfile());
+			return "\nIts contraction hierarchy was built in " + ch.nanos() / 1000000
+					+ "ms with " + ch.shortcutCount() + " shortcuts.";
+		case ALT:
+			Landmarks lm = routes.landmarks(getProfile());
+			return "\nIts " + lm.count() + " landmarks were chosen in "
+					+ lm.nanos() / 1000000 + "ms.";
+		default:
+			return "";
+		}
+	}
+
+	/**
+	 * Removes the highlighting and the drawn route, ready for whatever is
+	 * selected next.
+	 */
+	private void clearHighlights() {
+		graph.clearHighlights();
+		route = null;
+		showingAPs = false;
+	}
+	
+	@Override
+	protected void onAPoints() {
+		// the articulation points are found the first time this is asked
+		// for, and then kept up to date by closing and reopening segments,
+		// so the time shown is that of the first search.
+		IncrementalArticulationPoints closures = graph.closures();
+		clearHighlights();
+		for (int v : closures.getAPS()) {
+			graph.highlightedNodes.add(graph.compact.node(v));
+		}
+		for (int s : closures.getBridges()) {
+			graph.highlightedSegments.add(graph.compact.segment(s));
+		}
+		showingAPs = true;
+		getTextOutputArea().setText("There are " + closures.count() + " articulation points, "
+									+ closures.bridgeCount() + " bridges and " + closures.blockCount()
+									+ " biconnected components in this map's "
+									+ closures.connectedCount() + " connected components, found in "
+									+ String.format("%.2f", closures.nanos() / 1e6) + "ms.");
+	}
+
+	/**
+	 * Closes the segment nearest the clicked location, or reopens it if it's
+	 * closed, and updates the articulation points and bridges to match.
+	 */
+	private void toggleSegment(Location clicked) {
+		Segment segment = graph.nearestSegment(clicked, MAX_CLICKED_DISTANCE);
+		if (segment == null)
+			return;
+		boolean closing = !graph.isClosed(segment);
+		long begin = System.nanoTime();
+		if (closing)
+			graph.closeSegment(segment);
+		else
+			graph.reopenSegment(segment);
+		long nanos = System.nanoTime() - begin;
+
+		IncrementalArticulationPoints closures = graph.closures();
+		if (!showingAPs) {
+			onAPoints();
+		} else {
+			// only the nodes the change touched need looking at, but any
+			// segment can become or stop being a bridge.
+			for (int v : closures.changed()) {
+				if (closures.isAP(v))
+					graph.highlightedNodes.add(graph.compact.node(v));
+				else
+					graph.highlightedNodes.remove(graph.compact.node(v));
+			}
+			graph.highlightedSegments.clear();
+			for (int s : closures.getBridges()) {
+				graph.highlightedSegments.add(graph.compact.segment(s));
+			}
+		}
+		getTextOutputArea().setText((closing ? "Closed" : "Reopened") + " a segment of "
+									+ segment.roadName + ", which changed " + closures.changed().length
+									+ " articulation points in " + String.format("%.2f", nanos / 1e6)
+									+ "ms. There are now " + closures.count() + " articulation points and "
+									+ closures.bridgeCount() + " bridges.");
+	}
+}
+
+// code for COMP261 assignments
\ No newline at end of file
@@ -0,0 +1,384 @@
+package journeyplanner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Writes a made up road network in the same three files as the Auckland
+ * data, so loading, routing and drawing can be tried on maps of any size.
+ * The network is laid out around the centre of Auckland, so it opens in the
+ * usual place in the GUI.
+ *
+ * There are three topologies:
+ *  - GRID: a square grid of streets 100m apart, with each row and column of
+ *    the grid a road.
+ *  - GEOMETRIC: nodes scattered at random, joined to every node within a
+ *    fixed distance, with the segments starting in each small square of the
+ *    map making up a road.
+ *  - HIERARCHICAL: a grid where every 8th row and column is an arterial road
+ *    and every 64th a motorway, and some local segments are left out to make
+ *    dead ends.
+ * A given fraction of the roads are one way. On grids, one way roads go in
+ * alternate directions, as in a city centre.
+ *
+ * Nothing is kept in memory: where every node is, and what every road is
+ * like, is worked out from a hash of the seed and its index whenever it's
+ * needed. So the files are written a line at a time, and even very big
+ * networks only take as long as the writing.
+ *
+ * Usage: java journeyplanner.NetworkGenerator <output directory> <nodes>
+ * [topology] [one way fraction] [seed]
+ */
+public class NetworkGenerator {
+
+	public enum Topology {
+		GRID, GEOMETRIC, HIERARCHICAL
+	}
+
+	// the centre of Auckland, and km per degree of latitude, as in Location.
+	private static final double CENTRE_LAT = -36.847622;
+	private static final double CENTRE_LON = 174.763444;
+	private static final double KM_PER_LAT = 111.0;
+	private static final double DEG_TO_RAD = Math.PI / 180;
+
+	// grids: the distance between streets, and how far each node can be
+	// moved from its place on the grid, in km.
+	private static final double SPACING = 0.1;
+	private static final double JITTER = 0.02;
+	// hierarchical grids: which rows and columns are arterials and motorways,
+	// and how many local segments are left out.
+	private static final int ARTERIAL_EVERY = 8, MOTORWAY_EVERY = 64;
+	private static final double DEAD_END_FRACTION = 0.15;
+	// random geometric networks: nodes are scattered a few to each cell, and
+	// joined to the nodes within RADIUS, which gives about 6 segments at each
+	// node: enough that nearly all of them are connected.
+	private static final int PER_CELL = 4;
+	private static final double CELL = 0.2;
+	private static final double RADIUS = 0.75 * CELL;
+
+	// what each hash is for, so they don't repeat each other.
+	private static final int X = 1, Y = 2, ONE_WAY = 3, DEAD_END = 4, NAME = 5,
+			SUFFIX = 6, CLASS = 7;
+
+	private static final String[] WORDS = { "kauri", "rimu", "totara",
+			"pohutukawa", "harbour", "beach", "hill", "park", "victoria",
+			"albert", "queen", "king", "ponsonby", "remuera", "mount", "valley",
+			"river", "bay", "ridge", "station", "church", "school", "market",
+			"mill", "forest", "lake", "garden", "college", "manuka", "kowhai",
+			"matai", "nikau", "puriri", "tui", "kereru", "kiwi", "rata", "miro",
+			"ocean", "summit", "glen", "west", "east", "north", "south", "high",
+			"green", "long", "old", "new" };
+	private static final String[] SUFFIXES = { "st", "rd", "ave", "cres", "pl",
+			"tce", "dr", "lane", "way", "cl" };
+
+	private final int nodes;
+	private final Topology topology;
+	private final double oneWayFraction;
+	private final long seed;
+	// grids: the number of columns and rows, the last of which may not be
+	// full. geometric: the number of columns of cells.
+	private final int columns, rows;
+
+	private int roadCount, segmentCount;
+
+	public NetworkGenerator(int nodes, Topology topology, double oneWayFraction,
+			long seed) {
+		if (nodes < 1)
+			throw new IllegalArgumentException("a network needs at least one node");
+		if (oneWayFraction < 0 || oneWayFraction > 1)
+			throw new IllegalArgumentException("the one way fraction must be between 0 and 1");
+		this.nodes = nodes;
+		this.topology = topology;
+		this.oneWayFraction = oneWayFraction;
+		this.seed = seed;
+		if (topology == Topology.GEOMETRIC) {
+			int cells = (nodes + PER_CELL - 1) / PER_CELL;
+			columns = (int) Math.ceil(Math.sqrt(cells));
+			rows = (cells + columns - 1) / columns;
+		} else {
+			columns = (int) Math.ceil(Math.sqrt(nodes));
+			rows = (nodes + columns - 1) / columns;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: java journeyplanner.NetworkGenerator <output directory> <nodes>"
+					+ " [topology] [one way fraction] [seed]");
+			return;
+		}
+		File directory = new File(args[0]);
+		int nodes = Integer.parseInt(args[1]);
+		Topology topology = args.length > 2 ? Topology.valueOf(args[2]) : Topology.GRID;
+		double oneWay = args.length > 3 ? Double.parseDouble(args[3]) : 0.1;
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : 261;
+
+		long begin = System.nanoTime();
+		NetworkGenerator generator = new NetworkGenerator(nodes, topology, oneWay, seed);
+		generator.write(directory);
+		System.out.printf("Wrote a %s network of %d nodes, %d roads and %d segments to %s in %.1fs.%n",
+				topology, nodes, generator.roadCount, generator.segmentCount,
+				directory, (System.nanoTime() - begin) / 1e9);
+	}
+
+	/**
+	 * Writes the node, road and segment files into the given directory,
+	 * making it if need be.
+	 */
+	public void write(File directory) throws IOException {
+		Files.createDirectories(directory.toPath());
+		try (Writer out = writer(new File(directory, "nodeID-lat-lon.tab"))) {
+			writeNodes(out);
+		}
+		try (Writer out = writer(new File(directory, "roadID-roadInfo.tab"))) {
+			writeRoads(out);
+		}
+		try (Writer out = writer(new File(directory,
+				"roadSeg-roadID-length-nodeID-nodeID-coords.tab"))) {
+			writeSegments(out);
+		}
+	}
+
+	private static Writer writer(File file) throws IOException {
+		return new BufferedWriter(Files.newBufferedWriter(file.toPath(),
+				StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	private void writeNodes(Writer out) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int id = 0; id < nodes; id++) {
+			line.setLength(0);
+			line.append(id).append('\t');
+			appendFixed(line, lat(id)).append('\t');
+			appendFixed(line, lon(id)).append('\n');
+			out.append(line);
+		}
+	}
+
+	private void writeRoads(Writer out) throws IOException {
+		out.write("roadid\ttype\tlabel\tcity\toneway\tspeed\troadclass\tnotforcar\tnotforpede\tnotforbicy\n");
+		roadCount = topology == Topology.GEOMETRIC ? columns * rows : rows + columns;
+		StringBuilder line = new StringBuilder();
+		for (int road = 0; road < roadCount; road++) {
+			int roadClass = roadClass(road);
+			boolean motorway = roadClass == 4;
+			line.setLength(0);
+			line.append(road).append('\t').append(motorway ? 1 : 6).append('\t')
+					.append(name(road, roadClass)).append("\tauckland\t")
+					.append(isOneWay(road) ? 1 : 0).append('\t')
+					.append(roadClass == 4 ? 5 : roadClass == 0 ? 2 : 3).append('\t')
+					.append(roadClass).append("\t0\t").append(motorway ? 1 : 0)
+					.append('\t').append(motorway ? 1 : 0).append('\n');
+			out.append(line);
+		}
+	}
+
+	private void writeSegments(Writer out) throws IOException {
+		out.write("roadID\tlength\tnodeID1\tnodeID2\tcoords\n");
+		StringBuilder line = new StringBuilder();
+		segmentCount = 0;
+		if (topology == Topology.GEOMETRIC) {
+			for (int id = 0; id < nodes; id++) {
+				int cell = id / PER_CELL;
+				int cellColumn = cell % columns, cellRow = cell / columns;
+				// join to the later nodes within reach, which can only be in
+				// this cell or the ones next to it.
+				for (int r = Math.max(cellRow - 1, 0); r <= cellRow + 1; r++) {
+					for (int c = Math.max(cellColumn - 1, 0); c <= Math.min(cellColumn + 1,
+							columns - 1); c++) {
+						int first = (r * columns + c) * PER_CELL;
+						for (int other = Math.max(first, id + 1); other < first + PER_CELL
+								&& other < nodes; other++) {
+							if (distance(id, other) <= RADIUS)
+								writeSegment(out, line, cell, id, other);
+						}
+					}
+				}
+			}
+		} else {
+			for (int id = 0; id < nodes; id++) {
+				int column = id % columns, row = id / columns;
+				if (column + 1 < columns && id + 1 < nodes)
+					writeGridSegment(out, line, row, id, id + 1);
+				if (id + columns < nodes)
+					writeGridSegment(out, line, rows + column, id, id + columns);
+			}
+		}
+	}
+
+	/**
+	 * Writes a segment of a grid road from a node to the next one along,
+	 * turned around if it's on a one way road going the other way.
+	 */
+	private void writeGridSegment(Writer out, StringBuilder line, int road,
+			int from, int to) throws IOException {
+		if (topology == Topology.HIERARCHICAL && roadClass(road) == 0
+				&& roadClass(crossingRoad(road, from)) == 0
+				&& unit(DEAD_END, (long) from * 2 + (road < rows ? 0 : 1)) < DEAD_END_FRACTION)
+			return;
+		if (isOneWay(road) && lineNumber(road) % 2 == 1)
+			writeSegment(out, line, road, to, from);
+		else
+			writeSegment(out, line, road, from, to);
+	}
+
+	private void writeSegment(Writer out, StringBuilder line, int road, int from,
+			int to) throws IOException {
+		line.setLength(0);
+		line.append(road).append('\t');
+		appendFixed(line, length(from, to)).append('\t').append(from).append('\t')
+				.append(to).append('\t');
+		appendFixed(line, lat(from)).append('\t');
+		appendFixed(line, lon(from)).append('\t');
+		appendFixed(line, lat(to)).append('\t');
+		appendFixed(line, lon(to)).append('\n');
+		out.append(line);
+		segmentCount++;
+	}
+
+	/**
+	 * Where a node is, in km east and north of the south-west corner.
+	 */
+	private double x(int id) {
+		if (topology == Topology.GEOMETRIC)
+			return (id / PER_CELL % columns + unit(X, id)) * CELL;
+		return id % columns * SPACING + (2 * unit(X, id) - 1) * JITTER;
+	}
+
+	private double y(int id) {
+		if (topology == Topology.GEOMETRIC)
+			return (id / PER_CELL / columns + unit(Y, id)) * CELL;
+		return id / columns * SPACING + (2 * unit(Y, id) - 1) * JITTER;
+	}
+
+	/**
+	 * A node's latitude and longitude, as written to the file. They're the
+	 * inverse of Location.newFromLatLon, rounded to the six decimal places
+	 * written, so loading them gives back what length() measures.
+	 */
+	private double lat(int id) {
+		double height = rows * (topology == Topology.GEOMETRIC ? CELL : SPACING);
+		return round(CENTRE_LAT + (y(id) - height / 2) / KM_PER_LAT);
+	}
+
+	private double lon(int id) {
+		double width = columns * (topology == Topology.GEOMETRIC ? CELL : SPACING);
+		double kmPerLon = KM_PER_LAT * Math.cos((lat(id) - CENTRE_LAT) * DEG_TO_RAD);
+		return round(CENTRE_LON + (x(id) - width / 2) / kmPerLon);
+	}
+
+	private static double round(double degrees) {
+		return Math.round(degrees * 1e6) / 1e6;
+	}
+
+	/**
+	 * How far apart two nodes are where they're laid out, for deciding which
+	 * to join.
+	 */
+	private double distance(int a, int b) {
+		return Math.hypot(x(a) - x(b), y(a) - y(b));
+	}
+
+	/**
+	 * The length to write for a segment: the straight line distance between
+	 * its ends once they're loaded, rounded up, so it's never shorter than
+	 * the distance the routing heuristics estimate.
+	 */
+	private double length(int a, int b) {
+		double km = Location.newFromLatLon(lat(a), lon(a)).distance(
+				Location.newFromLatLon(lat(b), lon(b)));
+		return Math.ceil(km * 1e6) / 1e6;
+	}
+
+	/**
+	 * Which row or column a grid road is, counting rows and columns
+	 * separately.
+	 */
+	private int lineNumber(int road) {
+		return road < rows ? road : road - rows;
+	}
+
+	/**
+	 * The grid road crossing the given one at a node.
+	 */
+	private int crossingRoad(int road, int node) {
+		return road < rows ? rows + node % columns : node / columns;
+	}
+
+	/**
+	 * The road class (see the data README): 0 for local roads, 2 for
+	 * arterials and 4 for motorways. In geometric networks a few roads are
+	 * collectors, 1.
+	 */
+	private int roadClass(int road) {
+		switch (topology) {
+		case HIERARCHICAL:
+			int line = lineNumber(road);
+			if (line % MOTORWAY_EVERY == 0)
+				return 4;
+			return line % ARTERIAL_EVERY == 0 ? 2 : 0;
+		case GEOMETRIC:
+			return unit(CLASS, road) < 0.1 ? 1 : 0;
+		default:
+			return 0;
+		}
+	}
+
+	private boolean isOneWay(int road) {
+		return unit(ONE_WAY, road) < oneWayFraction;
+	}
+
+	private String name(int road, int roadClass) {
+		if (roadClass == 4)
+			return "motorway " + (lineNumber(road) / MOTORWAY_EVERY + 1)
+					+ (road < rows ? " east" : " north");
+		long hash = hash(NAME, road);
+		String first = WORDS[(int) Long.remainderUnsigned(hash, WORDS.length)];
+		String second = WORDS[(int) Long.remainderUnsigned(hash >>> 20, WORDS.length)];
+		String suffix = roadClass == 2 ? "rd"
+				: SUFFIXES[(int) Long.remainderUnsigned(hash(SUFFIX, road), SUFFIXES.length)];
+		// about half the names have two words, to make there more of them.
+		return ((hash >>> 40) % 2 == 0 || first.equals(second) ? first
+				: first + " " + second) + " " + suffix;
+	}
+
+	/**
+	 * A random number in [0, 1) for the given purpose and index, always the
+	 * same for the same seed.
+	 */
+	private double unit(int purpose, long index) {
+		return (hash(purpose, index) >>> 11) * 0x1.0p-53;
+	}
+
+	private long hash(int purpose, long index) {
+		return mix(seed + purpose * 0x9E3779B97F4A7C15L + mix(index));
+	}
+
+	// the splitmix64 finaliser.
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Appends a number with six decimal places, which is much quicker than
+	 * String.format when there are millions to write.
+	 */
+	private static StringBuilder appendFixed(StringBuilder line, double value) {
+		long micros = Math.round(value * 1e6);
+		if (micros < 0) {
+			line.append('-');
+			micros = -micros;
+		}
+		line.append(micros / 1000000).append('.');
+		long fraction = micros % 1000000;
+		for (long digit = 100000; digit > fraction && digit > 1; digit /= 10)
+			line.append('0');
+		return line.append(fraction);
+	}
+}
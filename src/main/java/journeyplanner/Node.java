@@ -0,0 +1,92 @@
+package journeyplanner;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Node represents an intersection in the road graph. It stores its ID and its
+ * location, as well as all the segments that it connects to. It knows how to
+ * draw itself, and has an informative toString method.
+ * 
+ * @author tony
+ */
+public class Node{
+
+	public final int nodeID;
+	public final Location location;
+	public final HashSet<Segment> segments;
+
+	// this node's position in the CompactGraph, assigned when it is built.
+	int index = -1;
+
+	public Node(int nodeID, double lat, double lon) {
+		this(nodeID, Location.newFromLatLon(lat, lon));
+	}
+
+	Node(int nodeID, Location location) {
+		this.nodeID = nodeID;
+		this.location = location;
+		this.segments = new HashSet<>();
+	}
+
+	public void addSegment(Segment seg) {
+		segments.add(seg);
+	}
+	
+	public HashSet<Segment> getSegments() {
+		return this.segments;
+	}
+	
+	public Location getLocation() {
+		return this.location;
+	}
+	
+	public int getID() {
+		return nodeID;
+	}
+	
+	
+	public void draw(Graphics g, Dimension area, Location origin, double scale) {
+		draw(g, location.x, location.y, area, origin, scale);
+	}
+
+	/**
+	 * Draws a node square at the given location, for drawing nodes that
+	 * don't have a Node object (see Graph.drawNetwork(Graphics, RoadNetwork,
+	 * ...)).
+	 */
+	public static void draw(Graphics g, double x, double y, Dimension area,
+			Location origin, double scale) {
+		Point p = new Location(x, y).asPoint(origin, scale);
+		int size = (int) (Mapper.NODE_GRADIENT * Math.log(scale) + Mapper.NODE_INTERCEPT);
+
+		// for efficiency, don't render nodes that are off-screen. nodes just
+		// over the edge are still drawn, so that a square split across two
+		// map tiles shows up in both.
+		if (p.x < -size || p.x > area.width + size || p.y < -size
+				|| p.y > area.height + size)
+			return;
+
+		g.fillRect(p.x - size / 2, p.y - size / 2, size, size);
+	}
+
+	public String toString() {
+		Set<String> edges = new HashSet<String>();
+		for (Segment s : segments) {
+			if (!edges.contains(s.road.name))
+				edges.add(s.road.name);
+		}
+
+		String str = "ID: " + nodeID + "  loc: " + location + "\nroads: ";
+		for (String e : edges) {
+			str += e + ", ";
+		}
+		return str.substring(0, str.length() - 2);
+	}
+
+}
+
+// code for COMP261 assignments
\ No newline at end of file
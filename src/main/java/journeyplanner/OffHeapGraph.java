@@ -0,0 +1,370 @@
+package journeyplanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A RoadNetwork that lives outside the Java heap, for networks too big to load
+ * as Node and Segment objects. It memory maps the columns of a GraphSnapshot
+ * and reads coordinates, adjacency and road attributes straight out of them,
+ * so the operating system pages them in and out as needed and the garbage
+ * collector never sees them.
+ *
+ * Each column is mapped on its own, so only a single column (rather than the
+ * whole file) has to fit in a mapping's 2GB. The few things worked out at open
+ * time, the cost of each segment under each profile and the blocked one-way
+ * count of each node, are kept in direct buffers, also off the heap. Costs
+ * are kept per segment rather than per edge, which halves their size for one
+ * more lookup per edge.
+ *
+ * There are no Node or Segment objects, so this works with RouteService,
+ * the searches, ArticulationPoints, KdTree, SegmentIndex and TileRenderer
+ * (through Graph.drawNetwork(Graphics, RoadNetwork, ...)), but not the GUI's
+ * Graph. GraphSnapshot.writeStreaming makes a snapshot of a map without
+ * loading it, and BatchRouter routes over one.
+ */
+public class OffHeapGraph implements RoadNetwork {
+	private final IntBuffer nodeIDs;
+	private final DoubleBuffer xs, ys;
+	private final IntBuffer byID;
+
+	private final IntBuffer nameOffsets;
+	private final ByteBuffer nameText;
+
+	private final IntBuffer segmentRoads;
+	private final DoubleBuffer segmentLengths;
+	private final IntBuffer firstPoint;
+	private final DoubleBuffer pointXs, pointYs;
+
+	private final IntBuffer outOffsets, outTargets, outSegments;
+	private final IntBuffer inOffsets, inSources, inSegments;
+	private final IntBuffer adjOffsets, adjTargets, adjSegments;
+
+	// segment costs by profile, and the least each profile can cost per km.
+	private final DoubleBuffer[] segmentCosts;
+	private final double[] minCostPerKm;
+	private final IntBuffer blockedOneWays;
+
+	/**
+	 * Opens a snapshot written by GraphSnapshot. Unlike GraphSnapshot.read,
+	 * this doesn't check the snapshot against the text files, which needn't
+	 * be around.
+	 */
+	public static OffHeapGraph open(File snapshot) throws IOException {
+		try (FileChannel channel = FileChannel.open(snapshot.toPath(),
+				StandardOpenOption.READ)) {
+			return new OffHeapGraph(new Columns(channel));
+		}
+	}
+
+	private OffHeapGraph(Columns in) throws IOException {
+		ByteBuffer header = in.header();
+		if (header.getInt() != GraphSnapshot.MAGIC
+				|| header.getInt() != GraphSnapshot.VERSION)
+			throw new IOException("not a version " + GraphSnapshot.VERSION
+					+ " graph snapshot");
+
+		// nodes.
+		nodeIDs = in.ints();
+		xs = in.doubles();
+		ys = in.doubles();
+		byID = in.ints();
+
+		// roads. only the attributes routing and its results need are kept.
+		in.skip(4);
+		IntBuffer oneways = in.ints();
+		ByteBuffer speeds = in.bytes();
+		in.skip(1);
+		ByteBuffer restrictions = in.bytes();
+		// names and cities, each offsets then text.
+		nameOffsets = in.ints();
+		nameText = in.bytes();
+		in.skip(4);
+		in.skip(1);
+
+		// segments.
+		segmentRoads = in.ints();
+		IntBuffer starts = in.ints(), ends = in.ints();
+		segmentLengths = in.doubles();
+		firstPoint = in.ints();
+		pointXs = in.doubles();
+		pointYs = in.doubles();
+
+		// adjacency, in the order of CompactGraph.adjacency().
+		outOffsets = in.ints();
+		outTargets = in.ints();
+		outSegments = in.ints();
+		inOffsets = in.ints();
+		inSources = in.ints();
+		inSegments = in.ints();
+		adjOffsets = in.ints();
+		adjTargets = in.ints();
+		adjSegments = in.ints();
+
+		int n = nodeIDs.limit(), m = segmentLengths.limit();
+		blockedOneWays = ByteBuffer.allocateDirect(4 * n)
+				.order(ByteOrder.nativeOrder()).asIntBuffer();
+		for (int s = 0; s < m; s++) {
+			int end = ends.get(s);
+			if (oneways.get(segmentRoads.get(s)) != 0 && starts.get(s) != end)
+				blockedOneWays.put(end, blockedOneWays.get(end) + 1);
+		}
+
+		RouteProfile[] profiles = RouteProfile.values();
+		segmentCosts = new DoubleBuffer[profiles.length];
+		minCostPerKm = new double[profiles.length];
+		for (RouteProfile profile : profiles) {
+			int p = profile.ordinal();
+			if (profile == RouteProfile.SHORTEST) {
+				segmentCosts[p] = segmentLengths;
+				minCostPerKm[p] = 1;
+				continue;
+			}
+			DoubleBuffer costs = ByteBuffer.allocateDirect(8 * m)
+					.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			double maxSpeed = 0;
+			for (int s = 0; s < m; s++) {
+				int road = segmentRoads.get(s);
+				int speed = speeds.get(road), restriction = restrictions.get(road);
+				costs.put(s, profile.cost(segmentLengths.get(s), speed, restriction));
+				if (profile.allows(restriction))
+					maxSpeed = Math.max(maxSpeed, profile.speed(speed));
+			}
+			segmentCosts[p] = costs;
+			minCostPerKm[p] = profile.timed ? 1 / Math.max(maxSpeed, 1) : 1;
+		}
+	}
+
+	@Override
+	public int size() {
+		return nodeIDs.limit();
+	}
+
+	@Override
+	public int segmentCount() {
+		return segmentLengths.limit();
+	}
+
+	@Override
+	public int nodeID(int v) {
+		return nodeIDs.get(v);
+	}
+
+	@Override
+	public int nodeIndex(int nodeID) {
+		int low = 0, high = byID.limit() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = nodeIDs.get(byID.get(middle));
+			if (id < nodeID)
+				low = middle + 1;
+			else if (id > nodeID)
+				high = middle - 1;
+			else
+				return byID.get(middle);
+		}
+		return -1;
+	}
+
+	@Override
+	public double x(int v) {
+		return xs.get(v);
+	}
+
+	@Override
+	public double y(int v) {
+		return ys.get(v);
+	}
+
+	@Override
+	public double minCostPerKm(RouteProfile profile) {
+		return minCostPerKm[profile.ordinal()];
+	}
+
+	@Override
+	public int blockedOneWays(int v) {
+		return blockedOneWays.get(v);
+	}
+
+	// ---- segments ----
+
+	@Override
+	public double segmentLength(int s) {
+		return segmentLengths.get(s);
+	}
+
+	@Override
+	public String roadName(int s) {
+		int road = segmentRoads.get(s);
+		byte[] name = new byte[nameOffsets.get(road + 1) - nameOffsets.get(road)];
+		nameText.get(nameOffsets.get(road), name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public int pointCount(int s) {
+		return firstPoint.get(s + 1) - firstPoint.get(s);
+	}
+
+	@Override
+	public double pointX(int s, int i) {
+		return pointXs.get(firstPoint.get(s) + i);
+	}
+
+	@Override
+	public double pointY(int s, int i) {
+		return pointYs.get(firstPoint.get(s) + i);
+	}
+
+	// ---- out edges ----
+
+	@Override
+	public int firstOut(int v) {
+		return outOffsets.get(v);
+	}
+
+	@Override
+	public int endOut(int v) {
+		return outOffsets.get(v + 1);
+	}
+
+	@Override
+	public int outTarget(int e) {
+		return outTargets.get(e);
+	}
+
+	@Override
+	public int outSegment(int e) {
+		return outSegments.get(e);
+	}
+
+	@Override
+	public double outLength(int e) {
+		return segmentLengths.get(outSegments.get(e));
+	}
+
+	@Override
+	public double outCost(RouteProfile profile, int e) {
+		return segmentCosts[profile.ordinal()].get(outSegments.get(e));
+	}
+
+	// ---- in edges ----
+
+	@Override
+	public int firstIn(int v) {
+		return inOffsets.get(v);
+	}
+
+	@Override
+	public int endIn(int v) {
+		return inOffsets.get(v + 1);
+	}
+
+	@Override
+	public int inSource(int e) {
+		return inSources.get(e);
+	}
+
+	@Override
+	public int inSegment(int e) {
+		return inSegments.get(e);
+	}
+
+	@Override
+	public double inLength(int e) {
+		return segmentLengths.get(inSegments.get(e));
+	}
+
+	@Override
+	public double inCost(RouteProfile profile, int e) {
+		return segmentCosts[profile.ordinal()].get(inSegments.get(e));
+	}
+
+	// ---- undirected edges ----
+
+	@Override
+	public int firstAdj(int v) {
+		return adjOffsets.get(v);
+	}
+
+	@Override
+	public int endAdj(int v) {
+		return adjOffsets.get(v + 1);
+	}
+
+	@Override
+	public int adjTarget(int e) {
+		return adjTargets.get(e);
+	}
+
+	@Override
+	public int adjSegment(int e) {
+		return adjSegments.get(e);
+	}
+
+	/**
+	 * Walks through the length-prefixed arrays of a snapshot, mapping each
+	 * one it's asked for.
+	 */
+	private static class Columns {
+		// magic, version and three checksums.
+		private static final int HEADER_SIZE = 32;
+
+		private final FileChannel channel;
+		private long position = 0;
+
+		Columns(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		ByteBuffer header() throws IOException {
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					HEADER_SIZE);
+			position = HEADER_SIZE;
+			return header;
+		}
+
+		IntBuffer ints() throws IOException {
+			return map(4).asIntBuffer();
+		}
+
+		DoubleBuffer doubles() throws IOException {
+			return map(8).asDoubleBuffer();
+		}
+
+		ByteBuffer bytes() throws IOException {
+			return map(1);
+		}
+
+		/**
+		 * Steps over an array of elements of the given size without mapping
+		 * it.
+		 */
+		void skip(int elementSize) throws IOException {
+			position += 4 + (long) elementSize * length();
+		}
+
+		private ByteBuffer map(int elementSize) throws IOException {
+			long bytes = (long) elementSize * length();
+			ByteBuffer column = channel.map(FileChannel.MapMode.READ_ONLY,
+					position + 4, bytes);
+			position += 4 + bytes;
+			return column;
+		}
+
+		private int length() throws IOException {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			while (length.hasRemaining())
+				if (channel.read(length, position + length.position()) < 0)
+					throw new IOException("snapshot ends early");
+			return length.getInt(0);
+		}
+	}
+}
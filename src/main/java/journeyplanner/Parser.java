@@ -1,3 +1,5 @@
+package journeyplanner;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
@@ -68,7 +70,7 @@ public class Parser {
 				int roadclass = asInt(tokens[6]);
 				int notforcar = asInt(tokens[7]);
 				int notforpede = asInt(tokens[8]);
-				int notforbicy = asInt(tokens[8]);
+				int notforbicy = asInt(tokens[9]);
 
 				Road road = new Road(roadID, type, label, city, oneway, speed,
 						roadclass, notforcar, notforpede, notforbicy);
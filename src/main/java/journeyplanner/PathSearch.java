@@ -0,0 +1,39 @@
+package journeyplanner;
+
+/**
+ * A point-to-point shortest path search over the nodes of a RoadNetwork
+ * (identified by their index). Implementations keep their scratch state
+ * between queries, so an instance can be reused but must only be used by one
+ * thread at a time.
+ */
+public interface PathSearch {
+
+	/**
+	 * Searches for the shortest path between the two nodes, and returns
+	 * whether the target can be reached.
+	 */
+	boolean search(int start, int target);
+
+	/**
+	 * The cost of the path found by the last search, under the profile the
+	 * search was made for, or infinity if there wasn't one.
+	 */
+	double cost();
+
+	/**
+	 * How many nodes the last search settled.
+	 */
+	int settledCount();
+
+	/**
+	 * How many one-way roads the last search couldn't go down from the nodes
+	 * it settled.
+	 */
+	int avoidedOneWays();
+
+	/**
+	 * The indices of the segments of the path found by the last search, in
+	 * order from the start to the target. Empty if there was no path.
+	 */
+	int[] path();
+}
@@ -0,0 +1,483 @@
+package journeyplanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A path compressed (radix) trie over road names, for the search box. Unlike
+ * Trie, it's built once into a handful of flat arrays: nodes are numbered
+ * breadth first, so the children of every node are consecutive and sorted
+ * by their first character, and each edge's label is a range of one of the
+ * names rather than a chain of one-character nodes. Roads are stored as road
+ * IDs.
+ *
+ * Every node also keeps the best K roads in its subtree, ranked by road class
+ * or length, worked out when the trie is built. So the best matches for a
+ * prefix are found in time proportional to the prefix and K, however many
+ * roads match it.
+ *
+ * fuzzy() also finds names with a prefix within a small edit distance of the
+ * query, for misspelt names. It walks the trie keeping one row of the
+ * Levenshtein table per character, and stops going down a branch as soon as
+ * every entry of the row is over the distance allowed, so it only visits the
+ * few branches close to the query.
+ */
+public class RadixTrie {
+
+	/**
+	 * How roads are ranked for top(): by road class then length, or by
+	 * length alone, best first. Ties go to the lower road ID.
+	 */
+	public enum Ranking {
+		CLASS, LENGTH
+	}
+
+	private final int k;
+	// the distinct road names, sorted. edge labels are ranges of these.
+	private final String[] names;
+	// the length of the longest name.
+	private final int longest;
+	// road IDs by rank, best first.
+	private final int[] rankedIDs;
+
+	// per node: its label is names[labelName].substring(labelStart,
+	// labelEnd), where labelEnd is also the node's depth, and its children
+	// are the nodes from firstChild[v] to firstChild[v + 1], whose labels
+	// start with firstChar.
+	private final int[] labelName, labelStart, labelEnd;
+	private final char[] firstChar;
+	private final int[] firstChild;
+
+	// per node: the IDs of roads named exactly the node's path, the ranks of
+	// the best K roads in its subtree, and how many roads there are in the
+	// subtree.
+	private final int[] roadOffsets, roadIDs;
+	private final int[] topOffsets, topRanks;
+	private final int[] counts;
+
+	public RadixTrie(Collection<Road> roads, int k, Ranking ranking) {
+		this.k = k;
+
+		// rank the roads once, so the rest of the work is on ints. roads
+		// with no name are left out, as in Trie.
+		List<Road> ranked = new ArrayList<Road>();
+		Map<Road, Double> lengths = new HashMap<Road, Double>();
+		for (Road road : roads) {
+			if (road.name.equals("-"))
+				continue;
+			ranked.add(road);
+			double length = 0;
+			for (Segment segment : road.components)
+				length += segment.length;
+			lengths.put(road, length);
+		}
+		ranked.sort((a, b) -> {
+			if (ranking == Ranking.CLASS && a.roadclass != b.roadclass)
+				return b.roadclass - a.roadclass;
+			int byLength = Double.compare(lengths.get(b), lengths.get(a));
+			return byLength != 0 ? byLength : Integer.compare(a.roadID, b.roadID);
+		});
+		rankedIDs = new int[ranked.size()];
+		Map<String, IntList> byName = new HashMap<String, IntList>();
+		for (int r = 0; r < rankedIDs.length; r++) {
+			Road road = ranked.get(r);
+			rankedIDs[r] = road.roadID;
+			byName.computeIfAbsent(road.name, name -> new IntList()).add(r);
+		}
+		names = byName.keySet().toArray(new String[0]);
+		Arrays.sort(names);
+		int longestName = 0;
+		for (String name : names)
+			longestName = Math.max(longestName, name.length());
+		longest = longestName;
+
+		// lay the nodes out breadth first. every node covers the names from
+		// lo to hi, which all start with its path.
+		IntList nodeName = new IntList(), nodeStart = new IntList(),
+				nodeEnd = new IntList(), nodeHi = new IntList(), children = new IntList();
+		nodeName.add(0);
+		nodeStart.add(0);
+		nodeEnd.add(0);
+		nodeHi.add(names.length);
+		for (int v = 0; v < nodeName.size; v++) {
+			children.add(nodeName.size);
+			int lo = nodeName.get(v), hi = nodeHi.get(v), depth = nodeEnd.get(v);
+			if (lo < hi && names[lo].length() == depth)
+				lo++; // the name that ends here, which sorts first.
+			while (lo < hi) {
+				char c = names[lo].charAt(depth);
+				int end = lo + 1;
+				while (end < hi && names[end].charAt(depth) == c)
+					end++;
+				// the names from lo to end share their first and last
+				// name's common prefix, so the edge can run that far.
+				nodeName.add(lo);
+				nodeStart.add(depth);
+				nodeEnd.add(commonPrefix(names[lo], names[end - 1]));
+				nodeHi.add(end);
+				lo = end;
+			}
+		}
+		int n = nodeName.size;
+		children.add(n);
+		labelName = nodeName.toArray();
+		labelStart = nodeStart.toArray();
+		labelEnd = nodeEnd.toArray();
+		firstChild = children.toArray();
+		firstChar = new char[n];
+		for (int v = 1; v < n; v++)
+			firstChar[v] = names[labelName[v]].charAt(labelStart[v]);
+
+		// the roads ending at each node, by rank.
+		int[][] own = new int[n][];
+		for (int v = 0; v < n; v++) {
+			String name = names.length > 0 ? names[labelName[v]] : null;
+			own[v] = name != null && name.length() == labelEnd[v]
+					? byName.get(name).toArray() : new int[0];
+		}
+
+		// the best ranks under each node, children first. children always
+		// come after their parent, so backwards is bottom up.
+		int[][] best = new int[n][];
+		counts = new int[n];
+		for (int v = n - 1; v >= 0; v--) {
+			int size = own[v].length;
+			counts[v] = own[v].length;
+			for (int c = firstChild[v]; c < firstChild[v + 1]; c++) {
+				size += best[c].length;
+				counts[v] += counts[c];
+			}
+			int[] merged = Arrays.copyOf(own[v], size);
+			size = own[v].length;
+			for (int c = firstChild[v]; c < firstChild[v + 1]; c++) {
+				System.arraycopy(best[c], 0, merged, size, best[c].length);
+				size += best[c].length;
+			}
+			Arrays.sort(merged);
+			best[v] = merged.length > k ? Arrays.copyOf(merged, k) : merged;
+		}
+
+		roadOffsets = new int[n + 1];
+		topOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			roadOffsets[v + 1] = roadOffsets[v] + own[v].length;
+			topOffsets[v + 1] = topOffsets[v] + best[v].length;
+		}
+		roadIDs = new int[roadOffsets[n]];
+		topRanks = new int[topOffsets[n]];
+		for (int v = 0; v < n; v++) {
+			for (int i = 0; i < own[v].length; i++)
+				roadIDs[roadOffsets[v] + i] = rankedIDs[own[v][i]];
+			System.arraycopy(best[v], 0, topRanks, topOffsets[v], best[v].length);
+		}
+	}
+
+	/**
+	 * The IDs of the best (up to) K roads whose names start with the prefix,
+	 * best first.
+	 */
+	public int[] top(String prefix) {
+		int v = find(prefix);
+		return v < 0 ? new int[0] : topOf(v);
+	}
+
+	private int[] topOf(int v) {
+		int[] top = new int[topOffsets[v + 1] - topOffsets[v]];
+		for (int i = 0; i < top.length; i++)
+			top[i] = rankedIDs[topRanks[topOffsets[v] + i]];
+		return top;
+	}
+
+	/**
+	 * The IDs of the best (up to) K roads whose names start with something
+	 * within maxDistance insertions, deletions or substitutions of the query.
+	 * Closer matches come first, then better roads, so roads starting with
+	 * the query itself come before any misspellings.
+	 */
+	public int[] fuzzy(String query, int maxDistance) {
+		// the Levenshtein rows for every prefix of the current path, and the
+		// nodes found to match, with their distances.
+		int[][] rows = new int[longest + 1][query.length() + 1];
+		for (int j = 0; j <= query.length(); j++)
+			rows[0][j] = j;
+		List<int[]> matches = new ArrayList<int[]>();
+		if (query.length() <= maxDistance)
+			matches.add(new int[] { 0, query.length() });
+		for (int c = firstChild[0]; c < firstChild[1]; c++)
+			fuzzy(c, query, maxDistance, rows, matches);
+
+		// every road under a matching node matches at least that well, and
+		// the best K of them are already to hand. sort the candidates by
+		// distance then rank, and take the first K distinct roads.
+		int size = 0;
+		for (int[] match : matches)
+			size += topOffsets[match[0] + 1] - topOffsets[match[0]];
+		long[] candidates = new long[size];
+		size = 0;
+		for (int[] match : matches)
+			for (int i = topOffsets[match[0]]; i < topOffsets[match[0] + 1]; i++)
+				candidates[size++] = (long) match[1] << 32 | topRanks[i];
+		Arrays.sort(candidates);
+		IntList found = new IntList();
+		Set<Integer> seen = new HashSet<Integer>();
+		for (int i = 0; i < candidates.length && found.size < k; i++) {
+			int rank = (int) candidates[i];
+			if (seen.add(rank))
+				found.add(rankedIDs[rank]);
+		}
+		return found.toArray();
+	}
+
+	/**
+	 * Extends the Levenshtein rows along the label of node v, noting v if the
+	 * query is within maxDistance of its path (or part of it), then carries
+	 * on into its children if any of them could still match.
+	 */
+	private void fuzzy(int v, String query, int maxDistance, int[][] rows,
+			List<int[]> matches) {
+		String label = names[labelName[v]];
+		int q = query.length(), best = Integer.MAX_VALUE;
+		boolean inRange = true;
+		for (int i = labelStart[v]; i < labelEnd[v]; i++) {
+			int[] previous = rows[i], row = rows[i + 1];
+			char c = label.charAt(i);
+			row[0] = i + 1;
+			int lowest = row[0];
+			for (int j = 1; j <= q; j++) {
+				int substitute = previous[j - 1] + (query.charAt(j - 1) == c ? 0 : 1);
+				row[j] = Math.min(substitute, Math.min(previous[j], row[j - 1]) + 1);
+				lowest = Math.min(lowest, row[j]);
+			}
+			best = Math.min(best, row[q]);
+			if (lowest > maxDistance) {
+				inRange = false; // nothing below here can come back within range.
+				break;
+			}
+		}
+		if (best <= maxDistance)
+			matches.add(new int[] { v, best });
+		// a perfect match can't be bettered further down.
+		if (best == 0 || !inRange)
+			return;
+		for (int c = firstChild[v]; c < firstChild[v + 1]; c++)
+			fuzzy(c, query, maxDistance, rows, matches);
+	}
+
+	/**
+	 * The IDs of all roads named exactly name, best first.
+	 */
+	public int[] exact(String name) {
+		int v = find(name);
+		return v < 0 ? new int[0] : exactOf(v, name.length());
+	}
+
+	/**
+	 * The roads named exactly the first depth characters of node v's path.
+	 */
+	private int[] exactOf(int v, int depth) {
+		if (labelEnd[v] != depth)
+			return new int[0];
+		return Arrays.copyOfRange(roadIDs, roadOffsets[v], roadOffsets[v + 1]);
+	}
+
+	/**
+	 * How many roads have names starting with the prefix.
+	 */
+	public int count(String prefix) {
+		int v = find(prefix);
+		return v < 0 ? 0 : counts[v];
+	}
+
+	public int k() {
+		return k;
+	}
+
+	public int nodeCount() {
+		return labelEnd.length;
+	}
+
+	/**
+	 * Starts a cursor at the root, for a query typed a character at a time.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Follows a query through the trie as it's typed: each character typed or
+	 * deleted moves the cursor one step, rather than finding the query from
+	 * the root again. Not safe for use by more than one thread at once.
+	 */
+	public class Cursor {
+		// the node reached after each character of the text.
+		private final IntList nodes = new IntList();
+		private final StringBuilder text = new StringBuilder();
+		// how many characters have been typed since the text stopped
+		// matching any name.
+		private int dead = 0;
+
+		private Cursor() {
+		}
+
+		public String text() {
+			return text.toString();
+		}
+
+		/**
+		 * Moves the cursor to the query, backing up to where it and the
+		 * current text part ways, then going forward from there.
+		 */
+		public void moveTo(String query) {
+			int common = 0, length = Math.min(query.length(), text.length());
+			while (common < length && query.charAt(common) == text.charAt(common))
+				common++;
+			while (text.length() > common)
+				back();
+			for (int i = common; i < query.length(); i++)
+				type(query.charAt(i));
+		}
+
+		/**
+		 * Adds a character to the end of the text.
+		 */
+		public void type(char c) {
+			text.append(c);
+			if (dead > 0) {
+				dead++;
+				return;
+			}
+			int v = node(), depth = text.length() - 1;
+			if (depth < labelEnd[v]) {
+				// part way along v's label.
+				if (names[labelName[v]].charAt(depth) != c) {
+					dead++;
+					return;
+				}
+			} else {
+				v = child(v, c);
+				if (v < 0) {
+					dead++;
+					return;
+				}
+			}
+			nodes.add(v);
+		}
+
+		/**
+		 * Removes the last character of the text.
+		 */
+		public void back() {
+			text.setLength(text.length() - 1);
+			if (dead > 0)
+				dead--;
+			else
+				nodes.size--;
+		}
+
+		/**
+		 * The node whose subtree holds the names starting with the text, or
+		 * -1 if there are none.
+		 */
+		private int node() {
+			if (dead > 0)
+				return -1;
+			return nodes.size == 0 ? 0 : nodes.get(nodes.size - 1);
+		}
+
+		/**
+		 * As RadixTrie.top, for the text.
+		 */
+		public int[] top() {
+			int v = node();
+			return v < 0 ? new int[0] : topOf(v);
+		}
+
+		/**
+		 * As RadixTrie.exact, for the text.
+		 */
+		public int[] exact() {
+			int v = node();
+			return v < 0 ? new int[0] : exactOf(v, text.length());
+		}
+
+		/**
+		 * As RadixTrie.count, for the text.
+		 */
+		public int count() {
+			int v = node();
+			return v < 0 ? 0 : counts[v];
+		}
+	}
+
+	/**
+	 * Returns the highest node whose subtree holds exactly the names starting
+	 * with the prefix, or -1 if there are none. The prefix may end part way
+	 * along the node's label.
+	 */
+	private int find(String prefix) {
+		int v = 0, i = 0;
+		while (i < prefix.length()) {
+			v = child(v, prefix.charAt(i));
+			if (v < 0)
+				return -1;
+			String label = names[labelName[v]];
+			int end = Math.min(labelEnd[v], labelStart[v] + prefix.length() - i);
+			for (int j = labelStart[v]; j < end; j++, i++)
+				if (label.charAt(j) != prefix.charAt(i))
+					return -1;
+		}
+		return v;
+	}
+
+	/**
+	 * Binary searches v's children for the one whose label starts with c.
+	 */
+	private int child(int v, char c) {
+		int lo = firstChild[v], hi = firstChild[v + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (firstChar[mid] < c)
+				lo = mid + 1;
+			else if (firstChar[mid] > c)
+				hi = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	private static int commonPrefix(String a, String b) {
+		int length = Math.min(a.length(), b.length()), i = 0;
+		while (i < length && a.charAt(i) == b.charAt(i))
+			i++;
+		return i;
+	}
+
+	/**
+	 * A growable list of ints, for building the arrays.
+	 */
+	private static class IntList {
+		int[] values = new int[16];
+		int size = 0;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2 * size);
+			values[size++] = value;
+		}
+
+		int get(int i) {
+			return values[i];
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -1,17 +1,26 @@
+package journeyplanner;
+
 import java.util.Collection;
 import java.util.HashSet;
 
 /**
  * Road represents ... a road ... in our graph, which is some metadata and a
- * collection of Segments. We have lots of information about Roads, but don't
- * use much of it.
+ * collection of Segments. We have lots of information about Roads; the speed,
+ * class and traffic restrictions are kept for routing, see RouteProfile.
  * 
  * @author tony
  */
 public class Road {
+	// bits of restrictions, for the kinds of traffic that can't use a road.
+	public static final int NOT_FOR_CAR = 1, NOT_FOR_PEDESTRIANS = 2,
+			NOT_FOR_BICYCLES = 4;
+
 	public final int roadID;
 	public final String name, city;
 	public final int oneway;
+	// the speed limit category (0-7) and road class (0-4), see the README.
+	public final byte speed, roadclass;
+	public final byte restrictions;
 	public final Collection<Segment> components;
 	public double length = 0;
 
@@ -22,6 +31,11 @@ public class Road {
 		this.city = city;
 		this.name = label;
 		this.oneway = oneway;
+		this.speed = (byte) speed;
+		this.roadclass = (byte) roadclass;
+		this.restrictions = (byte) ((notforcar != 0 ? NOT_FOR_CAR : 0)
+				| (notforpede != 0 ? NOT_FOR_PEDESTRIANS : 0)
+				| (notforbicy != 0 ? NOT_FOR_BICYCLES : 0));
 		this.components = new HashSet<Segment>();
 	}
 
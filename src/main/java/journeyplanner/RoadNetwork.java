@@ -0,0 +1,109 @@
+package journeyplanner;
+
+/**
+ * The road graph as the routing, articulation point and drawing code sees it:
+ * nodes and segments identified by dense indices, with their coordinates,
+ * their out, in and undirected adjacency, and the cost of every directed edge
+ * under each RouteProfile. The edges of node v in each adjacency are the
+ * indices from first(v) (inclusive) to end(v) (exclusive).
+ *
+ * CompactGraph keeps all of this in arrays on the heap, next to the Node and
+ * Segment objects the GUI uses. OffHeapGraph reads it straight out of a
+ * memory mapped GraphSnapshot, for networks too big to load as objects.
+ */
+public interface RoadNetwork {
+
+	int size();
+
+	int segmentCount();
+
+	/**
+	 * The ID of node v in the data files.
+	 */
+	int nodeID(int v);
+
+	/**
+	 * The index of the node with the given ID in the data files, or -1 if
+	 * there isn't one.
+	 */
+	int nodeIndex(int nodeID);
+
+	double x(int v);
+
+	double y(int v);
+
+	/**
+	 * Straight line distance between two nodes.
+	 */
+	default double distance(int u, int v) {
+		return Math.hypot(x(u) - x(v), y(u) - y(v));
+	}
+
+	/**
+	 * The least the given profile can cost per km, so that a straight line
+	 * distance can be turned into a lower bound on cost.
+	 */
+	double minCostPerKm(RouteProfile profile);
+
+	/**
+	 * How many one-way segments end at node v, ie. the segments that can't
+	 * be used to leave it.
+	 */
+	int blockedOneWays(int v);
+
+	// ---- segments ----
+
+	double segmentLength(int s);
+
+	/**
+	 * The name of the road segment s is part of.
+	 */
+	String roadName(int s);
+
+	/**
+	 * How many points make up the line of segment s.
+	 */
+	int pointCount(int s);
+
+	double pointX(int s, int i);
+
+	double pointY(int s, int i);
+
+	// ---- out edges ----
+
+	int firstOut(int v);
+
+	int endOut(int v);
+
+	int outTarget(int e);
+
+	int outSegment(int e);
+
+	double outLength(int e);
+
+	double outCost(RouteProfile profile, int e);
+
+	// ---- in edges ----
+
+	int firstIn(int v);
+
+	int endIn(int v);
+
+	int inSource(int e);
+
+	int inSegment(int e);
+
+	double inLength(int e);
+
+	double inCost(RouteProfile profile, int e);
+
+	// ---- undirected edges ----
+
+	int firstAdj(int v);
+
+	int endAdj(int v);
+
+	int adjTarget(int e);
+
+	int adjSegment(int e);
+}
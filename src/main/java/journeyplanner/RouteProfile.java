@@ -0,0 +1,82 @@
+package journeyplanner;
+
+/**
+ * What a route is optimised for: the kind of traffic it is for, which decides
+ * which roads can be used, and whether it is the shortest or the quickest.
+ * Travel times use the speed limit category of each road (capped at the
+ * traveller's own speed when walking or cycling), and are in hours.
+ */
+public enum RouteProfile {
+	SHORTEST("Shortest", 0, false, 0),
+	CAR_SHORTEST("Car, shortest", Road.NOT_FOR_CAR, false, 0),
+	CAR_FASTEST("Car, fastest", Road.NOT_FOR_CAR, true, 0),
+	WALKING("Walking", Road.NOT_FOR_PEDESTRIANS, true, 5),
+	CYCLING("Cycling", Road.NOT_FOR_BICYCLES, true, 20);
+
+	// km/h for each speed limit category, see the data README. 'no limit' is
+	// taken to be 120.
+	private static final double[] SPEED_LIMITS = { 5, 20, 40, 60, 80, 100, 110, 120 };
+
+	private final String label;
+	private final int restriction;
+	public final boolean timed;
+	private final double ownSpeed;
+
+	private RouteProfile(String label, int restriction, boolean timed,
+			double ownSpeed) {
+		this.label = label;
+		this.restriction = restriction;
+		this.timed = timed;
+		this.ownSpeed = ownSpeed;
+	}
+
+	public boolean allows(Road road) {
+		return allows(road.restrictions);
+	}
+
+	/**
+	 * Whether this kind of traffic can use a road with the given restriction
+	 * bits (see Road).
+	 */
+	public boolean allows(int restrictions) {
+		return (restrictions & restriction) == 0;
+	}
+
+	/**
+	 * How fast (in km/h) this kind of traffic goes along the given road.
+	 */
+	public double speed(Road road) {
+		return speed(road.speed);
+	}
+
+	/**
+	 * How fast (in km/h) this kind of traffic goes on a road with the given
+	 * speed limit category.
+	 */
+	public double speed(int speedCategory) {
+		double limit = SPEED_LIMITS[Math.max(0, Math.min(speedCategory, SPEED_LIMITS.length - 1))];
+		return ownSpeed > 0 ? Math.min(limit, ownSpeed) : limit;
+	}
+
+	/**
+	 * The cost of travelling along the given segment, or infinity if it can't
+	 * be used.
+	 */
+	public double cost(Segment segment) {
+		return cost(segment.length, segment.road.speed, segment.road.restrictions);
+	}
+
+	/**
+	 * The cost of travelling the given length along a road with the given
+	 * speed limit category and restrictions, or infinity if it can't be used.
+	 */
+	public double cost(double length, int speedCategory, int restrictions) {
+		if (!allows(restrictions))
+			return Double.POSITIVE_INFINITY;
+		return timed ? length / speed(speedCategory) : length;
+	}
+
+	public String toString() {
+		return label;
+	}
+}
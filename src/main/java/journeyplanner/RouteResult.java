@@ -0,0 +1,105 @@
+package journeyplanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable outcome of a single route query: whether a route was found,
+ * its length and its cost under the profile it was found for (the same as the
+ * length for distance profiles, in hours for timed ones), the segments and
+ * nodes along it in order from the start to the target, and some statistics
+ * about the search that found it. The segments and nodes are only filled in
+ * for a route over a CompactGraph, as other networks have no objects for
+ * them; segmentCount, distance and roadLengths always are.
+ */
+public class RouteResult {
+	public final int startID, targetID;
+	public final RouteProfile profile;
+	public final boolean found;
+	public final double distance;
+	public final double cost;
+	public final int segmentCount;
+	public final List<Segment> segments;
+	// the nodes the route passes through, starting with the start node.
+	public final List<Node> nodes;
+	// the length travelled along each road, in the order the roads are first
+	// reached.
+	public final Map<String, Double> roadLengths;
+	public final int settledNodes;
+	public final int avoidedOneWays;
+	// how long the search took.
+	public final long nanos;
+
+	public RouteResult(int startID, int targetID, RouteProfile profile,
+			boolean found, double cost, RoadNetwork network, int[] path,
+			int settledNodes, int avoidedOneWays, long nanos) {
+		this.startID = startID;
+		this.targetID = targetID;
+		this.profile = profile;
+		this.found = found;
+		this.cost = cost;
+		this.segmentCount = path.length;
+		this.settledNodes = settledNodes;
+		this.avoidedOneWays = avoidedOneWays;
+		this.nanos = nanos;
+
+		double length = 0;
+		Map<String, Double> roads = new LinkedHashMap<>();
+		for (int s : path) {
+			length += network.segmentLength(s);
+			roads.merge(network.roadName(s), network.segmentLength(s), Double::sum);
+		}
+
+		List<Segment> segments = new ArrayList<>();
+		List<Node> nodes = new ArrayList<>();
+		if (network instanceof CompactGraph && path.length > 0) {
+			CompactGraph compact = (CompactGraph) network;
+			Segment first = compact.segment(path[0]);
+			Node at = first.start.nodeID == startID ? first.start : first.end;
+			nodes.add(at);
+			for (int s : path) {
+				Segment segment = compact.segment(s);
+				at = segment.start == at ? segment.end : segment.start;
+				nodes.add(at);
+				segments.add(segment);
+			}
+		}
+		this.distance = found ? length : Double.POSITIVE_INFINITY;
+		this.segments = Collections.unmodifiableList(segments);
+		this.nodes = Collections.unmodifiableList(nodes);
+		this.roadLengths = Collections.unmodifiableMap(roads);
+	}
+
+	/**
+	 * Describes the route for a person to read: its length, the travel time
+	 * for timed profiles, and how far it goes along each road.
+	 */
+	public String itinerary() {
+		if (!found)
+			return "There is no route from stop: " + startID + " to stop: "
+					+ targetID + ".";
+		StringBuilder text = new StringBuilder();
+		text.append("The shortest distance between stop: " + startID
+				+ " and stop: " + targetID + " is "
+				+ String.format("%.2f", distance) + "km.\n");
+		if (profile.timed)
+			text.append("Travel time (" + profile + ") is "
+					+ String.format("%.1f", cost * 60) + " minutes.\n");
+		text.append("This path avoids " + avoidedOneWays + " one way roads!\n");
+		text.append("Roads through the path are:\n");
+		for (Map.Entry<String, Double> road : roadLengths.entrySet())
+			text.append(road.getKey() + " : "
+					+ String.format("%.2f", road.getValue()) + "km\n");
+		return text.toString();
+	}
+
+	public String toString() {
+		if (!found)
+			return "No route from " + startID + " to " + targetID;
+		return String.format("%d -> %d: %.2fkm over %d segments", startID,
+				targetID, distance, segmentCount);
+	}
+}
@@ -0,0 +1,188 @@
+package journeyplanner;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Answers route queries against one shared RoadNetwork, which it treats as
+ * read-only: the CompactGraph of a Graph, or an OffHeapGraph for maps too big
+ * to load. It is safe to call route from any number of threads at once:
+ * every query borrows a search engine (and its scratch state) from a pool,
+ * so queries never share mutable state. Engines are created on demand and
+ * kept for reuse, so each pool grows to the number of queries that have run
+ * at the same time and no further. There is a pool for every algorithm and
+ * RouteProfile.
+ *
+ * Contraction hierarchies and landmarks are built the first time a profile
+ * needs them. Each profile's are built under their own lock, so a long build
+ * only holds up the queries waiting for it. Nothing is printed; callers that
+ * want to report a build can ask hierarchy() or landmarks() for its time.
+ */
+public class RouteService {
+
+	/**
+	 * The search algorithms a route can be found with.
+	 */
+	public enum Algorithm {
+		ASTAR("A*"), BIDIRECTIONAL("Bidirectional A*"), CONTRACTION_HIERARCHY(
+				"Contraction Hierarchy"), ALT("A* with landmarks");
+
+		private final String label;
+
+		private Algorithm(String label) {
+			this.label = label;
+		}
+
+		public String toString() {
+			return label;
+		}
+	}
+
+	private final RoadNetwork network;
+	private final Map<Algorithm, Map<RouteProfile, ConcurrentLinkedQueue<PathSearch>>> engines = new EnumMap<>(Algorithm.class);
+	// built the first time they're needed, as preprocessing takes a while.
+	// the maps are filled in by the constructor and only read after that.
+	private final Map<RouteProfile, Lazy<ContractionHierarchy>> hierarchies = new EnumMap<>(RouteProfile.class);
+	private final Map<RouteProfile, Lazy<Landmarks>> landmarks = new EnumMap<>(RouteProfile.class);
+
+	private int landmarkCount = 16;
+	private Landmarks.Strategy landmarkStrategy = Landmarks.Strategy.AVOID;
+
+	public RouteService(Graph graph) {
+		this(graph.compact);
+	}
+
+	public RouteService(RoadNetwork network) {
+		this.network = network;
+		for (Algorithm algorithm : Algorithm.values()) {
+			Map<RouteProfile, ConcurrentLinkedQueue<PathSearch>> pools = new EnumMap<>(RouteProfile.class);
+			for (RouteProfile profile : RouteProfile.values())
+				pools.put(profile, new ConcurrentLinkedQueue<PathSearch>());
+			engines.put(algorithm, pools);
+		}
+		for (RouteProfile profile : RouteProfile.values()) {
+			hierarchies.put(profile, new Lazy<ContractionHierarchy>(
+					() -> new ContractionHierarchy(network, profile)));
+			landmarks.put(profile, new Lazy<Landmarks>(() -> newLandmarks(profile)));
+		}
+	}
+
+	/**
+	 * Finds the shortest route between the nodes with the given IDs using A*.
+	 */
+	public RouteResult route(int startID, int targetID) {
+		return route(startID, targetID, Algorithm.ASTAR, RouteProfile.SHORTEST);
+	}
+
+	/**
+	 * Finds the shortest route between the nodes with the given IDs using the
+	 * given algorithm.
+	 */
+	public RouteResult route(int startID, int targetID, Algorithm algorithm) {
+		return route(startID, targetID, algorithm, RouteProfile.SHORTEST);
+	}
+
+	/**
+	 * Finds the best route for the given profile between the nodes with the
+	 * given IDs, using the given algorithm.
+	 */
+	public RouteResult route(int startID, int targetID, Algorithm algorithm,
+			RouteProfile profile) {
+		int start = network.nodeIndex(startID);
+		int target = network.nodeIndex(targetID);
+		if (start < 0 || target < 0)
+			throw new IllegalArgumentException("unknown node: "
+					+ (start < 0 ? startID : targetID));
+
+		ConcurrentLinkedQueue<PathSearch> pool = engines.get(algorithm).get(profile);
+		PathSearch search = pool.poll();
+		if (search == null)
+			search = newSearch(algorithm, profile);
+		try {
+			long begin = System.nanoTime();
+			boolean found = search.search(start, target);
+			return new RouteResult(startID, targetID, profile, found,
+					search.cost(), network, search.path(), search.settledCount(),
+					search.avoidedOneWays(), System.nanoTime() - begin);
+		} finally {
+			pool.offer(search);
+		}
+	}
+
+	private PathSearch newSearch(Algorithm algorithm, RouteProfile profile) {
+		switch (algorithm) {
+		case BIDIRECTIONAL:
+			return new BidirectionalAStarSearch(network, profile);
+		case CONTRACTION_HIERARCHY:
+			return new ContractionHierarchySearch(hierarchy(profile));
+		case ALT:
+			return new AStarSearch(network, profile, new LandmarkHeuristic(
+					network, landmarks(profile)));
+		default:
+			return new AStarSearch(network, profile);
+		}
+	}
+
+	/**
+	 * Returns the contraction hierarchy of the graph for the given profile,
+	 * building it if this is the first time it has been asked for.
+	 */
+	public ContractionHierarchy hierarchy(RouteProfile profile) {
+		return hierarchies.get(profile).get();
+	}
+
+	/**
+	 * Sets how many landmarks ALT routing uses and how they are chosen. This
+	 * only affects profiles that haven't had an ALT query yet.
+	 */
+	public synchronized void setLandmarks(int count, Landmarks.Strategy strategy) {
+		this.landmarkCount = count;
+		this.landmarkStrategy = strategy;
+	}
+
+	/**
+	 * Returns the landmarks used for ALT routing with the given profile,
+	 * choosing them and computing their distances if this is the first time
+	 * they have been asked for.
+	 */
+	public Landmarks landmarks(RouteProfile profile) {
+		return landmarks.get(profile).get();
+	}
+
+	private Landmarks newLandmarks(RouteProfile profile) {
+		int count;
+		Landmarks.Strategy strategy;
+		synchronized (this) {
+			count = landmarkCount;
+			strategy = landmarkStrategy;
+		}
+		return new Landmarks(network, profile, count, strategy);
+	}
+
+	/**
+	 * Something built the first time it's asked for. Each has its own lock,
+	 * so building one doesn't hold up any other.
+	 */
+	private static class Lazy<T> {
+		private final Supplier<T> build;
+		private volatile T value;
+
+		Lazy(Supplier<T> build) {
+			this.build = build;
+		}
+
+		T get() {
+			T built = value;
+			if (built == null) {
+				synchronized (this) {
+					built = value;
+					if (built == null)
+						value = built = build.get();
+				}
+			}
+			return built;
+		}
+	}
+}
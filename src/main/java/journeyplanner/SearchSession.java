@@ -0,0 +1,136 @@
+package journeyplanner;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the search box's queries as they're typed, on a background thread
+ * rather than the Swing event thread. A RadixTrie.Cursor follows the query,
+ * so each keystroke moves it a step instead of searching from the root.
+ *
+ * Only the newest query matters: starting one cancels any that haven't
+ * started yet, and a query that's overtaken while it's running drops its
+ * result. Results are handed back on the event thread.
+ */
+public class SearchSession {
+
+	/**
+	 * What a query found: the roads to highlight, and the text to show.
+	 */
+	public static class Result {
+		public final String query;
+		public final Collection<Road> roads;
+		public final String text;
+
+		Result(String query, Collection<Road> roads, String text) {
+			this.query = query;
+			this.roads = roads;
+			this.text = text;
+		}
+	}
+
+	private final RadixTrie trie;
+	private final Map<Integer, Road> roads;
+	// only used on the search thread.
+	private final RadixTrie.Cursor cursor;
+	private final ExecutorService executor;
+	// the newest query, and the task for it.
+	private final AtomicLong latest = new AtomicLong();
+	private Future<?> pending;
+
+	public SearchSession(RadixTrie trie, Map<Integer, Road> roads) {
+		this.trie = trie;
+		this.roads = roads;
+		this.cursor = trie.cursor();
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "road-search");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts a query, replacing any earlier one. onResult is called on the
+	 * event thread, unless a newer query has started by then.
+	 */
+	public void search(String query, Consumer<Result> onResult) {
+		long id = latest.incrementAndGet();
+		if (pending != null)
+			pending.cancel(false);
+		pending = executor.submit(() -> {
+			if (id != latest.get())
+				return;
+			Result result = run(query, id);
+			if (result == null)
+				return;
+			SwingUtilities.invokeLater(() -> {
+				if (id == latest.get() && !executor.isShutdown())
+					onResult.accept(result);
+			});
+		});
+	}
+
+	/**
+	 * Stops the search thread, eg. when a new map is loaded. Any results
+	 * still on their way are dropped.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Runs a query on the search thread, giving up (and returning null) if
+	 * it's overtaken. As per the specification, if any roads match the query
+	 * exactly, only they are highlighted; otherwise it's the best of the
+	 * roads starting with it, or with something close to it if it's misspelt.
+	 */
+	private Result run(String query, long id) {
+		cursor.moveTo(query);
+		int[] roadIDs = cursor.exact();
+		boolean exactMatch = roadIDs.length > 0;
+		if (!exactMatch) {
+			if (id != latest.get())
+				return null;
+			roadIDs = trie.fuzzy(query, allowedTypos(query));
+		}
+		if (id != latest.get())
+			return null;
+
+		// the roads to highlight, and their names without duplicates, best
+		// first.
+		Collection<Road> selected = new LinkedHashSet<>();
+		Collection<String> names = new LinkedHashSet<>();
+		for (int roadID : roadIDs) {
+			Road road = roads.get(roadID);
+			selected.add(road);
+			names.add(road.name);
+		}
+		StringBuilder text = new StringBuilder(String.join("; ", names));
+		int matches = cursor.count();
+		if (!exactMatch && matches == 0 && roadIDs.length > 0)
+			text.append("\n(no roads start with \"").append(query)
+					.append("\", showing close matches)");
+		else if (!exactMatch && matches > roadIDs.length)
+			text.append("\n(showing the best ").append(roadIDs.length).append(" of ")
+					.append(matches).append(" matching roads)");
+		return new Result(query, selected, text.toString());
+	}
+
+	/**
+	 * How many typos to allow in a search. Short queries get none, since
+	 * a couple of edits would let them match almost anything.
+	 */
+	static int allowedTypos(String query) {
+		if (query.length() <= 3)
+			return 0;
+		return query.length() <= 7 ? 1 : 2;
+	}
+}
@@ -0,0 +1,87 @@
+package journeyplanner;
+
+import java.util.Arrays;
+
+/**
+ * The per-node scratch space of a shortest path search: the best known cost of
+ * each node, how it was reached, and whether it has been settled. Rather than
+ * clearing every array between queries, each entry is stamped with the
+ * generation of the query that wrote it, and anything stamped with an older
+ * generation reads as untouched. Starting a new query is then just a counter
+ * increment.
+ */
+public class SearchState {
+	private final int[] reached;
+	private final int[] settled;
+	private final double[] cost;
+	private final int[] parentNode;
+	private final int[] parentEdge;
+	private int generation = 0;
+	private int settledCount = 0;
+
+	public SearchState(int size) {
+		reached = new int[size];
+		settled = new int[size];
+		cost = new double[size];
+		parentNode = new int[size];
+		parentEdge = new int[size];
+	}
+
+	/**
+	 * Forgets everything from the previous query.
+	 */
+	public void reset() {
+		generation++;
+		settledCount = 0;
+		// on the (very) rare wrap around, old stamps could collide with new
+		// ones, so clear them for real.
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(settled, 0);
+			generation = 1;
+		}
+	}
+
+	public boolean isReached(int v) {
+		return reached[v] == generation;
+	}
+
+	public boolean isSettled(int v) {
+		return settled[v] == generation;
+	}
+
+	/**
+	 * Returns the best known cost to v, or infinity if it hasn't been reached.
+	 */
+	public double cost(int v) {
+		return reached[v] == generation ? cost[v] : Double.POSITIVE_INFINITY;
+	}
+
+	public int parentNode(int v) {
+		return parentNode[v];
+	}
+
+	public int parentEdge(int v) {
+		return parentEdge[v];
+	}
+
+	/**
+	 * Records that v can be reached with the given cost, from the given node
+	 * along the given edge (both -1 for the start of the search).
+	 */
+	public void reach(int v, double c, int fromNode, int viaEdge) {
+		reached[v] = generation;
+		cost[v] = c;
+		parentNode[v] = fromNode;
+		parentEdge[v] = viaEdge;
+	}
+
+	public void settle(int v) {
+		settled[v] = generation;
+		settledCount++;
+	}
+
+	public int settledCount() {
+		return settledCount;
+	}
+}
@@ -0,0 +1,222 @@
+package journeyplanner;
+
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * A Segment is the most interesting class making up our graph, and represents
+ * an edge between two Nodes. It knows the Road it belongs to as well as the
+ * Nodes it joins, and contains a series of Locations that make up the length of
+ * the Segment and can be used to render it.
+ * 
+ * @author tony
+ */
+public class Segment {
+
+	public final Road road;
+	public final Node start, end;
+	public final double length;
+	public final Location[] points;
+	public final String roadName;
+
+	// this segment's position in the CompactGraph, assigned when it is built.
+	int index = -1;
+
+	// how many zoom button presses apart the levels of detail are, and how
+	// many there are. level k is simplified so that it's at most a pixel out
+	// at ZOOM_FACTOR^(DETAIL_STEP * k) times the minimum zoom, which covers
+	// the whole zoom range.
+	private static final int DETAIL_STEP = 4;
+	static final int DETAIL_LEVELS = 6;
+
+	// simplified copies of points, coarsest first, or null if points can't be
+	// simplified (ie. it's a straight line).
+	private final Location[][] detail;
+
+	public Segment(Graph graph, int roadID, double length, int node1ID,
+			int node2ID, double[] coords) {
+		this(graph.roads.get(roadID), graph.nodes.get(node1ID), graph.nodes
+				.get(node2ID), length, toLocations(coords));
+	}
+
+	/**
+	 * Makes a segment from points that are already Locations, for loading
+	 * from a GraphSnapshot.
+	 */
+	Segment(Road road, Node start, Node end, double length, Location[] points) {
+		this.road = road;
+		this.start = start;
+		this.end = end;
+		this.length = length;
+		this.roadName = road.getName();
+		this.points = points;
+		detail = simplify(points);
+
+		this.road.addSegment(this);
+		this.start.addSegment(this);
+		this.end.addSegment(this);
+	}
+	
+	private static Location[] toLocations(double[] coords) {
+		Location[] points = new Location[coords.length / 2];
+		for (int i = 0; i < points.length; i++) {
+			points[i] = Location
+					.newFromLatLon(coords[2 * i], coords[2 * i + 1]);
+		}
+		return points;
+	}
+	
+	public Node getStartNode(){
+		return this.start;
+	}
+	
+	public Node getEndNode(){
+		return this.end;
+	}
+	
+	public double getLength(){
+		return this.length;
+	}
+	
+	public Road getRoad(){
+		return this.road;
+	}
+	
+	/**
+	 * Works out which level of detail to draw at the given scale: the
+	 * coarsest one that is less than a pixel out. This is the same for every
+	 * segment, so work it out once per redraw.
+	 */
+	public static int detailLevel(double scale) {
+		double steps = Math.log(scale / Mapper.MIN_ZOOM)
+				/ (DETAIL_STEP * Math.log(Mapper.ZOOM_FACTOR));
+		return Math.max(0, (int) Math.floor(steps) + 1);
+	}
+
+	public void draw(Graphics g, Location origin, double scale) {
+		draw(g, origin, scale, detailLevel(scale));
+	}
+
+	/**
+	 * Draws the segment using the given level of detail. Pieces that start
+	 * and end on the same pixel are skipped, and if the whole segment is
+	 * inside one pixel it isn't drawn at all, since the nodes at its ends
+	 * cover that pixel anyway.
+	 */
+	public void draw(Graphics g, Location origin, double scale, int level) {
+		Location[] line = line(level);
+		int px = (int) ((line[0].x - origin.x) * scale);
+		int py = (int) ((origin.y - line[0].y) * scale);
+		for (int i = 1; i < line.length; i++) {
+			int qx = (int) ((line[i].x - origin.x) * scale);
+			int qy = (int) ((origin.y - line[i].y) * scale);
+			if (qx == px && qy == py)
+				continue;
+			g.drawLine(px, py, qx, qy);
+			px = qx;
+			py = qy;
+		}
+	}
+
+	/**
+	 * The points drawn at the given level of detail, which are some of the
+	 * points, including the first and last.
+	 */
+	Location[] line(int level) {
+		return detail == null || level >= DETAIL_LEVELS ? points : detail[level];
+	}
+
+	/**
+	 * How far the line drawn at the given level of detail can be from the
+	 * points, in km.
+	 */
+	static double tolerance(int level) {
+		return 1 / (Mapper.MIN_ZOOM * Math.pow(Mapper.ZOOM_FACTOR, DETAIL_STEP * level));
+	}
+
+	/**
+	 * Draws segment s of a network at full detail, in the same way as
+	 * draw(), for segments that don't have a Segment object (see
+	 * Graph.drawNetwork(Graphics, RoadNetwork, ...)).
+	 */
+	public static void draw(Graphics g, RoadNetwork network, int s,
+			Location origin, double scale) {
+		int px = (int) ((network.pointX(s, 0) - origin.x) * scale);
+		int py = (int) ((origin.y - network.pointY(s, 0)) * scale);
+		for (int i = 1; i < network.pointCount(s); i++) {
+			int qx = (int) ((network.pointX(s, i) - origin.x) * scale);
+			int qy = (int) ((origin.y - network.pointY(s, i)) * scale);
+			if (qx == px && qy == py)
+				continue;
+			g.drawLine(px, py, qx, qy);
+			px = qx;
+			py = qy;
+		}
+	}
+
+	/**
+	 * Builds the levels of detail for a line with the Douglas-Peucker
+	 * algorithm. Levels that come out the same size as the next finer one
+	 * share its array.
+	 */
+	private static Location[][] simplify(Location[] points) {
+		if (points.length <= 2)
+			return null;
+		Location[][] levels = new Location[DETAIL_LEVELS][];
+		Location[] finer = points;
+		boolean[] keep = new boolean[points.length];
+		for (int k = DETAIL_LEVELS - 1; k >= 0; k--) {
+			double tolerance = tolerance(k);
+			Arrays.fill(keep, false);
+			keep[0] = keep[points.length - 1] = true;
+			douglasPeucker(points, 0, points.length - 1, tolerance, keep);
+			int count = 0;
+			for (boolean b : keep)
+				if (b)
+					count++;
+			if (count == finer.length) {
+				levels[k] = finer;
+				continue;
+			}
+			Location[] level = new Location[count];
+			for (int i = 0, j = 0; i < points.length; i++)
+				if (keep[i])
+					level[j++] = points[i];
+			levels[k] = finer = level;
+		}
+		return levels;
+	}
+
+	/**
+	 * Marks the points between first and last that have to be kept for the
+	 * line to stay within tolerance of the original.
+	 */
+	private static void douglasPeucker(Location[] points, int first, int last,
+			double tolerance, boolean[] keep) {
+		if (last - first < 2)
+			return;
+		Location a = points[first], b = points[last];
+		double dx = b.x - a.x, dy = b.y - a.y;
+		double lengthSq = dx * dx + dy * dy;
+		int furthest = -1;
+		double furthestDist = tolerance;
+		for (int i = first + 1; i < last; i++) {
+			Location p = points[i];
+			// distance from p to the piece a-b, not the infinite line.
+			double t = lengthSq == 0 ? 0
+					: Math.max(0, Math.min(1, ((p.x - a.x) * dx + (p.y - a.y) * dy) / lengthSq));
+			double dist = Math.hypot(p.x - (a.x + t * dx), p.y - (a.y + t * dy));
+			if (dist > furthestDist) {
+				furthest = i;
+				furthestDist = dist;
+			}
+		}
+		if (furthest < 0)
+			return;
+		keep[furthest] = true;
+		douglasPeucker(points, first, furthest, tolerance, keep);
+		douglasPeucker(points, furthest, last, tolerance, keep);
+	}
+}
+
+// code for COMP261 assignments
\ No newline at end of file
@@ -0,0 +1,159 @@
+package journeyplanner;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A static, packed R-tree over the bounding boxes of every segment in a
+ * RoadNetwork, so that drawing only has to visit the segments that are
+ * actually on screen.
+ *
+ * The segments are put in Sort-Tile-Recursive order (sliced by the x of their
+ * centres, then sorted by y within each slice), and then grouped
+ * NODE_CAPACITY at a time into leaves, the leaves NODE_CAPACITY at a time into
+ * the level above, and so on up to a single root. Each level is a run of
+ * boxes in flat arrays, and the children of box i are boxes i *
+ * NODE_CAPACITY onwards of the level below, so no pointers are stored.
+ */
+public class SegmentIndex {
+	private static final int NODE_CAPACITY = 16;
+
+	// segment indices in tree order, and their boxes in the same order.
+	private final int[] items;
+	private final double[] leafMinX, leafMinY, leafMaxX, leafMaxY;
+	// boxes of every level, lowest first. level l is the range
+	// levelStart[l] .. levelStart[l + 1] of the box arrays.
+	private final double[] minX, minY, maxX, maxY;
+	private final int[] levelStart;
+
+	public SegmentIndex(RoadNetwork graph) {
+		int n = graph.segmentCount();
+		double[] boxMinX = new double[n], boxMinY = new double[n];
+		double[] boxMaxX = new double[n], boxMaxY = new double[n];
+		for (int s = 0; s < n; s++) {
+			double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+			double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+			for (int p = 0; p < graph.pointCount(s); p++) {
+				x0 = Math.min(x0, graph.pointX(s, p));
+				y0 = Math.min(y0, graph.pointY(s, p));
+				x1 = Math.max(x1, graph.pointX(s, p));
+				y1 = Math.max(y1, graph.pointY(s, p));
+			}
+			boxMinX[s] = x0;
+			boxMinY[s] = y0;
+			boxMaxX[s] = x1;
+			boxMaxY[s] = y1;
+		}
+		items = strOrder(boxMinX, boxMinY, boxMaxX, boxMaxY);
+
+		// work out how many boxes each level needs.
+		int levels = 0;
+		int total = 0;
+		for (int count = n; ; ) {
+			count = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			levels++;
+			total += count;
+			if (count <= 1)
+				break;
+		}
+		levelStart = new int[levels + 1];
+		minX = new double[total];
+		minY = new double[total];
+		maxX = new double[total];
+		maxY = new double[total];
+
+		// the lowest level bounds the segments themselves.
+		int below = n;
+		for (int l = 0; l < levels; l++) {
+			int count = (below + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			levelStart[l + 1] = levelStart[l] + count;
+			for (int b = 0; b < count; b++) {
+				int box = levelStart[l] + b;
+				minX[box] = minY[box] = Double.POSITIVE_INFINITY;
+				maxX[box] = maxY[box] = Double.NEGATIVE_INFINITY;
+				int end = Math.min(below, (b + 1) * NODE_CAPACITY);
+				for (int c = b * NODE_CAPACITY; c < end; c++) {
+					if (l == 0) {
+						int s = items[c];
+						grow(box, boxMinX[s], boxMinY[s], boxMaxX[s], boxMaxY[s]);
+					} else {
+						int child = levelStart[l - 1] + c;
+						grow(box, minX[child], minY[child], maxX[child], maxY[child]);
+					}
+				}
+			}
+			below = count;
+		}
+
+		leafMinX = new double[n];
+		leafMinY = new double[n];
+		leafMaxX = new double[n];
+		leafMaxY = new double[n];
+		for (int i = 0; i < n; i++) {
+			leafMinX[i] = boxMinX[items[i]];
+			leafMinY[i] = boxMinY[items[i]];
+			leafMaxX[i] = boxMaxX[items[i]];
+			leafMaxY[i] = boxMaxY[items[i]];
+		}
+	}
+
+	private void grow(int box, double x0, double y0, double x1, double y1) {
+		minX[box] = Math.min(minX[box], x0);
+		minY[box] = Math.min(minY[box], y0);
+		maxX[box] = Math.max(maxX[box], x1);
+		maxY[box] = Math.max(maxY[box], y1);
+	}
+
+	/**
+	 * Returns the segment indices in Sort-Tile-Recursive order.
+	 */
+	private static int[] strOrder(double[] x0, double[] y0, double[] x1,
+			double[] y1) {
+		int n = x0.length;
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> Double.compare(x0[a] + x1[a], x0[b] + x1[b]));
+
+		int leaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int slices = (int) Math.ceil(Math.sqrt(leaves));
+		int perSlice = slices * NODE_CAPACITY;
+		for (int from = 0; from < n; from += perSlice)
+			Arrays.sort(order, from, Math.min(n, from + perSlice),
+					(a, b) -> Double.compare(y0[a] + y1[a], y0[b] + y1[b]));
+
+		int[] items = new int[n];
+		for (int i = 0; i < n; i++)
+			items[i] = order[i];
+		return items;
+	}
+
+	/**
+	 * Calls the visitor with the index of every segment whose bounding box
+	 * overlaps the given rectangle.
+	 */
+	public void query(double x0, double y0, double x1, double y1,
+			IntConsumer visitor) {
+		if (items.length == 0)
+			return;
+		int top = levelStart.length - 2;
+		query(top, 0, x0, y0, x1, y1, visitor);
+	}
+
+	private void query(int level, int b, double x0, double y0, double x1,
+			double y1, IntConsumer visitor) {
+		int box = levelStart[level] + b;
+		if (maxX[box] < x0 || minX[box] > x1 || maxY[box] < y0 || minY[box] > y1)
+			return;
+		int below = level == 0 ? items.length : levelStart[level] - levelStart[level - 1];
+		int end = Math.min(below, (b + 1) * NODE_CAPACITY);
+		for (int c = b * NODE_CAPACITY; c < end; c++) {
+			if (level > 0) {
+				query(level - 1, c, x0, y0, x1, y1, visitor);
+			} else if (leafMaxX[c] >= x0 && leafMinX[c] <= x1
+					&& leafMaxY[c] >= y0 && leafMinY[c] <= y1) {
+				visitor.accept(items[c]);
+			}
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package journeyplanner;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws the static part of the map (segments and nodes) from a cache of
+ * pre-rendered image tiles, so that redrawing the screen is mostly copying
+ * images rather than drawing every segment again.
+ *
+ * Each zoom level (the number of ZOOM_FACTOR steps from a scale of 1) has its
+ * own grid of TILE_SIZE square tiles, where tile (tx, ty) covers the pixels
+ * tx * TILE_SIZE onwards across and ty * TILE_SIZE onwards down, measured from
+ * the map's origin at that level's scale. Tiles are kept in a least recently
+ * used cache of at most MAX_TILES images. Tiles that aren't in the cache are
+ * left blank and rendered on a background pool, and the callback given to the
+ * constructor is run once each is ready so the screen can be repainted.
+ *
+ * Highlights change all the time, so they aren't part of the tiles; draw them
+ * over the top with Graph.drawHighlights.
+ *
+ * Tiles are drawn either from a Graph, with its levels of detail, or from any
+ * RoadNetwork and its spatial indexes, eg. an OffHeapGraph.
+ */
+public class TileRenderer {
+	public static final int TILE_SIZE = 256;
+	// 256 tiles of 256x256 ARGB pixels is 64MB.
+	public static final int MAX_TILES = 256;
+
+	private final Painter painter;
+	private final Runnable onTileReady;
+	private final ExecutorService pool;
+
+	// tile images by key, in least recently used order.
+	private final Map<Long, BufferedImage> cache = new LinkedHashMap<Long, BufferedImage>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+			return size() > MAX_TILES;
+		}
+	};
+	// tiles waiting on, or being drawn by, the pool.
+	private final Set<Long> pending = new HashSet<>();
+	// the zoom level last drawn, so that queued tiles for a level the user
+	// has already zoomed away from can be skipped.
+	private volatile int currentLevel;
+
+	public TileRenderer(Graph graph, Runnable onTileReady) {
+		this(graph::drawNetwork, onTileReady);
+	}
+
+	public TileRenderer(RoadNetwork network, SegmentIndex segmentIndex,
+			KdTree nodeIndex, Runnable onTileReady) {
+		this((g, area, origin, scale) -> Graph.drawNetwork(g, network,
+				segmentIndex, nodeIndex, area, origin, scale), onTileReady);
+	}
+
+	private TileRenderer(Painter painter, Runnable onTileReady) {
+		this.painter = painter;
+		this.onTileReady = onTileReady;
+		int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+		this.pool = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "tile-renderer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Draws the tiles covering the given area of the screen, and queues any
+	 * that aren't ready yet.
+	 */
+	public void draw(Graphics g, Dimension screen, Location origin, double scale) {
+		int level = (int) Math.round(Math.log(scale) / Math.log(Mapper.ZOOM_FACTOR));
+		double tileScale = Math.pow(Mapper.ZOOM_FACTOR, level);
+		currentLevel = level;
+
+		// the origin in pixels at this level, and the tiles it falls across.
+		double left = origin.x * tileScale, top = -origin.y * tileScale;
+		int tx0 = (int) Math.floor(left / TILE_SIZE);
+		int ty0 = (int) Math.floor(top / TILE_SIZE);
+		int tx1 = (int) Math.floor((left + screen.width) / TILE_SIZE);
+		int ty1 = (int) Math.floor((top + screen.height) / TILE_SIZE);
+
+		for (int ty = ty0; ty <= ty1; ty++) {
+			for (int tx = tx0; tx <= tx1; tx++) {
+				long key = key(level, tx, ty);
+				BufferedImage tile;
+				synchronized (cache) {
+					tile = cache.get(key);
+					if (tile == null && pending.add(key))
+						submit(key, level, tx, ty, tileScale);
+				}
+				if (tile != null)
+					g.drawImage(tile, (int) Math.floor(tx * TILE_SIZE - left),
+							(int) Math.floor(ty * TILE_SIZE - top), null);
+			}
+		}
+	}
+
+	/**
+	 * Stops the background threads. The renderer can't be used after this.
+	 */
+	public void shutdown() {
+		pool.shutdownNow();
+	}
+
+	private void submit(long key, int level, int tx, int ty, double tileScale) {
+		pool.execute(() -> {
+			BufferedImage tile = null;
+			if (level == currentLevel)
+				tile = render(tx, ty, tileScale);
+			synchronized (cache) {
+				pending.remove(key);
+				if (tile != null)
+					cache.put(key, tile);
+			}
+			if (tile != null)
+				onTileReady.run();
+		});
+	}
+
+	private BufferedImage render(int tx, int ty, double tileScale) {
+		BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = tile.createGraphics();
+		Location tileOrigin = new Location((double) tx * TILE_SIZE / tileScale,
+				-(double) ty * TILE_SIZE / tileScale);
+		painter.draw(g, new Dimension(TILE_SIZE, TILE_SIZE), tileOrigin,
+				tileScale);
+		g.dispose();
+		return tile;
+	}
+
+	/**
+	 * Packs a zoom level and tile position into one cache key, with 24 bits
+	 * each for the tile coordinates.
+	 */
+	private static long key(int level, int tx, int ty) {
+		return ((long) (level & 0xFFFF) << 48) | ((long) (tx & 0xFFFFFF) << 24)
+				| (ty & 0xFFFFFF);
+	}
+
+	/**
+	 * Draws the segments and nodes in an area, without highlights.
+	 */
+	private interface Painter {
+		void draw(Graphics g, Dimension area, Location origin, double scale);
+	}
+}
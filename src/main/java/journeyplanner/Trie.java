@@ -1,3 +1,5 @@
+package journeyplanner;
+
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
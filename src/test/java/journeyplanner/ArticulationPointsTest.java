@@ -0,0 +1,195 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks ArticulationPoints against removing each node and segment in turn
+ * and counting what's left connected, with and without closed segments, on
+ * one thread and in parallel, and likewise which biconnected component each
+ * segment and node is in.
+ */
+class ArticulationPointsTest {
+
+	@Test
+	void randomGraphsMatchBruteForce() {
+		Random random = new Random(1);
+		for (int i = 0; i < 2000; i++) {
+			CompactGraph graph = TestMaps.random(random, 1 + random.nextInt(12), random.nextInt(20));
+			boolean[] closed = new boolean[graph.segmentCount()];
+			if (i % 2 == 1)
+				for (int s = 0; s < closed.length; s++)
+					closed[s] = random.nextInt(4) == 0;
+			ArticulationPoints ap = new ArticulationPoints(graph, closed);
+			ap.findAPs(random.nextBoolean());
+
+			int base = components(graph, closed, -1, -1);
+			List<Integer> points = new ArrayList<Integer>(), bridges = new ArrayList<Integer>();
+			for (int v = 0; v < graph.size(); v++)
+				if (components(graph, closed, v, -1) > base)
+					points.add(v);
+			for (int s = 0; s < graph.segmentCount(); s++)
+				if (!closed[s] && components(graph, closed, -1, s) > base)
+					bridges.add(s);
+			assertEquals(points, toList(ap.getAPS()));
+			assertEquals(bridges, toList(ap.getBridges()));
+		}
+	}
+
+	/**
+	 * Two segments are in the same biconnected component when they're
+	 * connected and no single node separates them: with any node removed,
+	 * what's left of each is still connected to what's left of the other.
+	 */
+	@Test
+	void blocksMatchBruteForce() {
+		Random random = new Random(2);
+		for (int i = 0; i < 1000; i++) {
+			CompactGraph graph = TestMaps.random(random, 1 + random.nextInt(12), random.nextInt(20));
+			int n = graph.size(), m = graph.segmentCount();
+			boolean[] closed = new boolean[m];
+			for (int s = 0; s < m; s++)
+				closed[s] = random.nextInt(4) == 0;
+			ArticulationPoints ap = new ArticulationPoints(graph, closed);
+			ap.findAPs(random.nextBoolean());
+
+			// the ends of each segment, and for each removed node (or none,
+			// as n), the piece each segment is left in.
+			int[] starts = new int[m], ends = new int[m];
+			for (int v = 0; v < n; v++) {
+				for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+					starts[graph.adjSegment(e)] = v;
+					ends[graph.adjSegment(e)] = graph.adjTarget(e);
+				}
+			}
+			int[][] piece = new int[n + 1][m];
+			for (int skip = 0; skip <= n; skip++) {
+				int[] label = label(graph, closed, skip);
+				for (int s = 0; s < m; s++)
+					piece[skip][s] = label[starts[s] == skip ? ends[s] : starts[s]];
+			}
+
+			for (int s = 0; s < m; s++) {
+				boolean inBlock = !closed[s] && starts[s] != ends[s];
+				assertEquals(inBlock, ap.component(s) >= 0, "segment " + s);
+				if (!inBlock)
+					continue;
+				for (int t = 0; t < m; t++) {
+					if (closed[t] || starts[t] == ends[t])
+						continue;
+					boolean same = true;
+					for (int skip = 0; skip <= n && same; skip++)
+						same = piece[skip][s] == piece[skip][t];
+					assertEquals(same, ap.component(s) == ap.component(t),
+							"segments " + s + " and " + t);
+				}
+			}
+
+			for (int v = 0; v < n; v++) {
+				List<Integer> blocks = new ArrayList<Integer>();
+				for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+					int c = ap.component(graph.adjSegment(e));
+					if (c >= 0 && !blocks.contains(c))
+						blocks.add(c);
+				}
+				List<Integer> found = toList(ap.components(v));
+				Collections.sort(blocks);
+				Collections.sort(found);
+				assertEquals(blocks, found, "node " + v);
+			}
+		}
+	}
+
+	@Test
+	void parallelMatchesSequential() {
+		for (CompactGraph graph : Arrays.asList(TestMaps.small().compact,
+				TestMaps.generated(NetworkGenerator.Topology.HIERARCHICAL).compact,
+				TestMaps.generated(NetworkGenerator.Topology.GEOMETRIC).compact)) {
+			ArticulationPoints sequential = new ArticulationPoints(graph);
+			sequential.findAPs(false);
+			ArticulationPoints parallel = new ArticulationPoints(graph);
+			parallel.findAPs(true);
+			assertArrayEquals(sequential.getAPS(), parallel.getAPS());
+			assertArrayEquals(sequential.getBridges(), parallel.getBridges());
+			assertEquals(sequential.componentCount(), parallel.componentCount());
+			assertEquals(sequential.connectedCount(), parallel.connectedCount());
+			// the same blocks, though they may be numbered differently.
+			for (int s = 0; s < graph.segmentCount(); s++)
+				for (int t = s + 1; t < Math.min(graph.segmentCount(), s + 50); t++)
+					assertEquals(sequential.component(s) == sequential.component(t),
+							parallel.component(s) == parallel.component(t));
+		}
+	}
+
+	/**
+	 * Counts the connected pieces of the graph without the given node and
+	 * segment (-1 for neither) and the closed segments.
+	 */
+	static int components(RoadNetwork graph, boolean[] closed, int skipNode, int skipSegment) {
+		boolean[] seen = new boolean[graph.size()];
+		int count = 0;
+		Deque<Integer> fringe = new ArrayDeque<Integer>();
+		for (int root = 0; root < graph.size(); root++) {
+			if (root == skipNode || seen[root])
+				continue;
+			count++;
+			seen[root] = true;
+			fringe.push(root);
+			while (!fringe.isEmpty()) {
+				int v = fringe.pop();
+				for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+					int w = graph.adjTarget(e), s = graph.adjSegment(e);
+					if (w == skipNode || s == skipSegment || closed[s] || seen[w])
+						continue;
+					seen[w] = true;
+					fringe.push(w);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Numbers the connected pieces of the graph without the given node and
+	 * the closed segments, giving the piece of each node.
+	 */
+	private static int[] label(RoadNetwork graph, boolean[] closed, int skipNode) {
+		int[] label = new int[graph.size()];
+		Arrays.fill(label, -1);
+		Deque<Integer> fringe = new ArrayDeque<Integer>();
+		for (int root = 0; root < graph.size(); root++) {
+			if (root == skipNode || label[root] >= 0)
+				continue;
+			label[root] = root;
+			fringe.push(root);
+			while (!fringe.isEmpty()) {
+				int v = fringe.pop();
+				for (int e = graph.firstAdj(v); e < graph.endAdj(v); e++) {
+					int w = graph.adjTarget(e);
+					if (w == skipNode || closed[graph.adjSegment(e)] || label[w] >= 0)
+						continue;
+					label[w] = root;
+					fringe.push(w);
+				}
+			}
+		}
+		return label;
+	}
+
+	static List<Integer> toList(int[] values) {
+		List<Integer> list = new ArrayList<Integer>();
+		for (int value : values)
+			list.add(value);
+		return list;
+	}
+}
@@ -0,0 +1,64 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks BatchRouter's output can be read back the same way anywhere.
+ */
+class BatchRouterTest {
+
+	@Test
+	void numbersIgnoreTheLocale(@TempDir Path directory) throws Exception {
+		Graph graph = TestMaps.small();
+		Node[] nodes = graph.nodes.values().toArray(new Node[0]);
+		StringBuilder pairs = new StringBuilder();
+		for (int i = 0; i + 1 < nodes.length && i < 200; i += 2)
+			pairs.append(nodes[i].nodeID).append(' ').append(nodes[i + 1].nodeID).append('\n');
+		File in = directory.resolve("pairs.txt").toFile();
+		File out = directory.resolve("routes.tsv").toFile();
+		Files.write(in.toPath(), pairs.toString().getBytes(StandardCharsets.UTF_8));
+
+		Locale locale = Locale.getDefault();
+		try {
+			// German locales write decimal commas.
+			Locale.setDefault(Locale.GERMANY);
+			BatchRouter.main(new String[] { TestMaps.SMALL.getPath(), in.getPath(),
+					out.getPath() });
+		} finally {
+			Locale.setDefault(locale);
+		}
+
+		List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.UTF_8);
+		assertEquals(101, lines.size());
+		for (String line : lines.subList(1, lines.size())) {
+			String[] columns = line.split("\t", -1);
+			assertEquals(8, columns.length, line);
+			if (!columns[2].equals("ok"))
+				continue;
+			Double.parseDouble(columns[3]);
+			Double.parseDouble(columns[4]);
+			Double.parseDouble(columns[6]);
+			for (String road : columns[7].split("(?<!\\\\);"))
+				Double.parseDouble(road.substring(road.lastIndexOf(':') + 1));
+		}
+	}
+
+	@Test
+	void separatorsInNamesAreEscaped() {
+		StringBuilder text = new StringBuilder();
+		BatchRouter.appendEscaped(text, "a:b;c\\d\te");
+		assertEquals("a\\:b\\;c\\\\d\\te", text.toString());
+		assertTrue(text.indexOf("\t") < 0);
+	}
+}
@@ -0,0 +1,104 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a snapshot written from a freshly parsed graph reads back as
+ * the same graph, and that one made from other files is ignored.
+ */
+class GraphSnapshotTest {
+	private static final String NODES = "nodeID-lat-lon.tab",
+			ROADS = "roadID-roadInfo.tab",
+			SEGMENTS = "roadSeg-roadID-length-nodeID-nodeID-coords.tab";
+
+	@Test
+	void readsBackWhatWasWritten(@TempDir Path directory) {
+		Graph parsed = Graph.fromDirectory(TestMaps.SMALL);
+		File snapshot = directory.resolve(GraphSnapshot.FILE_NAME).toFile();
+		GraphSnapshot.write(parsed, snapshot, file(TestMaps.SMALL, NODES),
+				file(TestMaps.SMALL, ROADS), file(TestMaps.SMALL, SEGMENTS));
+		Graph read = GraphSnapshot.read(snapshot, file(TestMaps.SMALL, NODES),
+				file(TestMaps.SMALL, ROADS), file(TestMaps.SMALL, SEGMENTS));
+		assertNotNull(read);
+
+		assertEquals(parsed.nodes.keySet(), read.nodes.keySet());
+		for (Node node : parsed.nodes.values()) {
+			Node other = read.nodes.get(node.nodeID);
+			assertEquals(node.location.x, other.location.x, "node " + node.nodeID);
+			assertEquals(node.location.y, other.location.y, "node " + node.nodeID);
+			assertEquals(node.segments.size(), other.segments.size(), "node " + node.nodeID);
+		}
+
+		assertEquals(parsed.roads.keySet(), read.roads.keySet());
+		for (Road road : parsed.roads.values()) {
+			Road other = read.roads.get(road.roadID);
+			String id = "road " + road.roadID;
+			assertEquals(road.name, other.name, id);
+			assertEquals(road.city, other.city, id);
+			assertEquals(road.oneway, other.oneway, id);
+			assertEquals(road.speed, other.speed, id);
+			assertEquals(road.roadclass, other.roadclass, id);
+			assertEquals(road.restrictions, other.restrictions, id);
+			assertEquals(road.components.size(), other.components.size(), id);
+		}
+
+		// the snapshot keeps the CompactGraph order, so segments and
+		// adjacency can be compared index by index.
+		CompactGraph before = parsed.compact, after = read.compact;
+		assertEquals(before.size(), after.size());
+		assertEquals(before.segmentCount(), after.segmentCount());
+		for (int v = 0; v < before.size(); v++)
+			assertEquals(before.nodeID(v), after.nodeID(v));
+		for (int s = 0; s < before.segmentCount(); s++) {
+			Segment segment = before.segment(s), other = after.segment(s);
+			String id = "segment " + s;
+			assertEquals(segment.road.roadID, other.road.roadID, id);
+			assertEquals(segment.start.nodeID, other.start.nodeID, id);
+			assertEquals(segment.end.nodeID, other.end.nodeID, id);
+			assertEquals(segment.length, other.length, id);
+			assertEquals(segment.points.length, other.points.length, id);
+			for (int p = 0; p < segment.points.length; p++) {
+				assertEquals(segment.points[p].x, other.points[p].x, id);
+				assertEquals(segment.points[p].y, other.points[p].y, id);
+			}
+		}
+		int[][] adjacency = before.adjacency(), readAdjacency = after.adjacency();
+		for (int a = 0; a < adjacency.length; a++)
+			assertArrayEquals(adjacency[a], readAdjacency[a], "adjacency array " + a);
+	}
+
+	@Test
+	void snapshotOfOtherFilesIsIgnored(@TempDir Path directory) throws Exception {
+		File map = directory.toFile();
+		for (String name : new String[] { NODES, ROADS, SEGMENTS })
+			Files.copy(file(TestMaps.SMALL, name).toPath(), directory.resolve(name));
+		Graph parsed = Graph.fromDirectory(map);
+		File snapshot = file(map, GraphSnapshot.FILE_NAME);
+		GraphSnapshot.write(parsed, snapshot, file(map, NODES), file(map, ROADS),
+				file(map, SEGMENTS));
+		assertNotNull(GraphSnapshot.read(snapshot, file(map, NODES), file(map, ROADS),
+				file(map, SEGMENTS)));
+
+		// a node added since the snapshot was written.
+		Files.write(directory.resolve(NODES), "999999999\t-36.9\t174.8\n"
+				.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+		assertNull(GraphSnapshot.read(snapshot, file(map, NODES), file(map, ROADS),
+				file(map, SEGMENTS)));
+	}
+
+	private static File file(File directory, String name) {
+		return new File(directory, name);
+	}
+}
@@ -0,0 +1,74 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that IncrementalArticulationPoints agrees with a full
+ * ArticulationPoints search after every close and reopen, that
+ * changed() reports exactly the nodes that changed, and that block slots are
+ * reused.
+ */
+class IncrementalArticulationPointsTest {
+
+	@Test
+	void randomGraphs() {
+		Random random = new Random(7);
+		for (int i = 0; i < 1000; i++) {
+			CompactGraph graph = TestMaps.random(random, 1 + random.nextInt(15), random.nextInt(25));
+			if (graph.segmentCount() > 0)
+				check(graph, random, 40);
+		}
+	}
+
+	@Test
+	void smallMap() {
+		check(TestMaps.small().compact, new Random(8), 400);
+	}
+
+	@Test
+	void generatedMap() {
+		check(TestMaps.generated(NetworkGenerator.Topology.HIERARCHICAL).compact,
+				new Random(9), 400);
+	}
+
+	private static void check(CompactGraph graph, Random random, int changes) {
+		IncrementalArticulationPoints incremental = new IncrementalArticulationPoints(graph);
+		for (int k = 0; k < changes; k++) {
+			int s = random.nextInt(graph.segmentCount());
+			boolean[] before = isAP(graph, incremental.getAPS());
+			boolean closing = !incremental.isClosed(s);
+			assertTrue(closing ? incremental.close(s) : incremental.reopen(s));
+
+			ArticulationPoints full = new ArticulationPoints(graph, incremental.closedSegments());
+			full.findAPs();
+			String change = (closing ? "closing " : "reopening ") + s;
+			assertArrayEquals(full.getAPS(), incremental.getAPS(), change);
+			assertArrayEquals(full.getBridges(), incremental.getBridges(), change);
+			assertEquals(full.componentCount(), incremental.blockCount(), change);
+			assertEquals(full.connectedCount(), incremental.connectedCount(), change);
+			// there are never more blocks than open segments, plus the one
+			// being split.
+			assertTrue(incremental.blockSlots() <= graph.segmentCount() + 1, change);
+
+			boolean[] after = isAP(graph, incremental.getAPS());
+			boolean[] changed = new boolean[graph.size()];
+			for (int v : incremental.changed())
+				changed[v] = true;
+			for (int v = 0; v < graph.size(); v++)
+				assertEquals(before[v] != after[v], changed[v], change + ", node " + v);
+		}
+	}
+
+	private static boolean[] isAP(CompactGraph graph, int[] points) {
+		boolean[] isAP = new boolean[graph.size()];
+		for (int v : points)
+			isAP[v] = true;
+		return isAP;
+	}
+}
@@ -0,0 +1,64 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks KdTree's nearest neighbour and range queries against looking at
+ * every node.
+ */
+class KdTreeTest {
+
+	@Test
+	void nearestMatchesBruteForce() {
+		CompactGraph graph = TestMaps.small().compact;
+		KdTree tree = new KdTree(graph);
+		Random random = new Random(5);
+		for (int q = 0; q < 2000; q++) {
+			double x = (random.nextDouble() - 0.5) * 30, y = (random.nextDouble() - 0.5) * 30;
+			int k = 1 + random.nextInt(10);
+			Integer[] all = new Integer[graph.size()];
+			for (int v = 0; v < all.length; v++)
+				all[v] = v;
+			Arrays.sort(all, Comparator.comparingDouble(v -> distance(graph, v, x, y)));
+
+			int[] nearest = tree.nearest(x, y, k);
+			assertEquals(k, nearest.length);
+			// ties may come in either order, so compare distances.
+			for (int i = 0; i < k; i++)
+				assertEquals(distance(graph, all[i], x, y), distance(graph, nearest[i], x, y), 1e-12);
+			assertEquals(distance(graph, all[0], x, y), distance(graph, tree.nearest(x, y), x, y), 1e-12);
+		}
+	}
+
+	@Test
+	void rangeMatchesBruteForce() {
+		CompactGraph graph = TestMaps.small().compact;
+		KdTree tree = new KdTree(graph);
+		Random random = new Random(6);
+		for (int q = 0; q < 500; q++) {
+			double x0 = (random.nextDouble() - 0.5) * 30, y0 = (random.nextDouble() - 0.5) * 30;
+			double x1 = x0 + random.nextDouble() * 5, y1 = y0 + random.nextDouble() * 5;
+			List<Integer> expected = new ArrayList<Integer>();
+			for (int v = 0; v < graph.size(); v++)
+				if (graph.x(v) >= x0 && graph.x(v) <= x1 && graph.y(v) >= y0 && graph.y(v) <= y1)
+					expected.add(v);
+			List<Integer> found = new ArrayList<Integer>();
+			tree.range(x0, y0, x1, y1, found::add);
+			found.sort(null);
+			assertArrayEquals(expected.toArray(), found.toArray());
+		}
+	}
+
+	private static double distance(CompactGraph graph, int v, double x, double y) {
+		return Math.hypot(graph.x(v) - x, graph.y(v) - y);
+	}
+}
@@ -0,0 +1,127 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that routing over a memory mapped snapshot gives the same routes as
+ * routing over the loaded graph, whether the snapshot was written from the
+ * graph or streamed straight from the data files, and that it draws the same.
+ */
+class OffHeapGraphTest {
+	private static final RouteProfile[] PROFILES = { RouteProfile.SHORTEST,
+			RouteProfile.CAR_FASTEST };
+
+	@Test
+	void streamedSnapshotRoutesLikeTheGraph(@TempDir Path directory) throws Exception {
+		File snapshot = directory.resolve(GraphSnapshot.FILE_NAME).toFile();
+		GraphSnapshot.writeStreaming(snapshot,
+				new File(TestMaps.SMALL, "nodeID-lat-lon.tab"),
+				new File(TestMaps.SMALL, "roadID-roadInfo.tab"),
+				new File(TestMaps.SMALL, "roadSeg-roadID-length-nodeID-nodeID-coords.tab"));
+		checkRoutes(TestMaps.small(), OffHeapGraph.open(snapshot));
+	}
+
+	@Test
+	void writtenSnapshotRoutesLikeTheGraph(@TempDir Path directory) throws Exception {
+		Graph graph = loadGenerated(directory);
+		checkRoutes(graph, OffHeapGraph.open(directory.resolve(GraphSnapshot.FILE_NAME).toFile()));
+	}
+
+	@Test
+	void drawsLikeTheGraph(@TempDir Path directory) throws Exception {
+		CompactGraph compact = loadGenerated(directory).compact;
+		OffHeapGraph network = OffHeapGraph.open(directory.resolve(GraphSnapshot.FILE_NAME).toFile());
+
+		// a square of a couple of km from the first node, at 100 pixels per km.
+		Location origin = new Location(compact.x(0), compact.y(0));
+		Dimension area = new Dimension(256, 256);
+		assertArrayEquals(draw(compact, area, origin), draw(network, area, origin));
+	}
+
+	/**
+	 * Generates a map into the given directory and parses it, writing a
+	 * snapshot next to it.
+	 */
+	private static Graph loadGenerated(Path directory) throws Exception {
+		TestMaps.generate(NetworkGenerator.Topology.HIERARCHICAL, directory.toFile());
+		return Graph.fromDirectory(directory.toFile(), true);
+	}
+
+	private static int[] draw(RoadNetwork network, Dimension area, Location origin) {
+		BufferedImage image = new BufferedImage(area.width, area.height,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		Graph.drawNetwork(g, network, new SegmentIndex(network), new KdTree(network),
+				area, origin, 100);
+		g.dispose();
+		int[] pixels = image.getRGB(0, 0, area.width, area.height, null, 0, area.width);
+		int drawn = 0;
+		for (int pixel : pixels)
+			if (pixel != 0)
+				drawn++;
+		assertTrue(drawn > 100, "only " + drawn + " pixels drawn");
+		return pixels;
+	}
+
+	@Test
+	void unknownNodesAreRejected(@TempDir Path directory) throws Exception {
+		File snapshot = directory.resolve(GraphSnapshot.FILE_NAME).toFile();
+		GraphSnapshot.writeStreaming(snapshot,
+				new File(TestMaps.SMALL, "nodeID-lat-lon.tab"),
+				new File(TestMaps.SMALL, "roadID-roadInfo.tab"),
+				new File(TestMaps.SMALL, "roadSeg-roadID-length-nodeID-nodeID-coords.tab"));
+		OffHeapGraph network = OffHeapGraph.open(snapshot);
+		assertEquals(-1, network.nodeIndex(-1));
+		int known = network.nodeID(0);
+		assertThrows(IllegalArgumentException.class,
+				() -> new RouteService(network).route(known, -1));
+	}
+
+	private static void checkRoutes(Graph graph, OffHeapGraph network) {
+		CompactGraph compact = graph.compact;
+		assertEquals(compact.size(), network.size());
+		assertEquals(compact.segmentCount(), network.segmentCount());
+		for (int v = 0; v < compact.size(); v++) {
+			int id = compact.nodeID(v);
+			int w = network.nodeIndex(id);
+			assertEquals(id, network.nodeID(w));
+			assertEquals(compact.x(v), network.x(w), 1e-9);
+			assertEquals(compact.y(v), network.y(w), 1e-9);
+		}
+
+		RouteService onHeap = new RouteService(graph);
+		RouteService offHeap = new RouteService(network);
+		Random random = new Random(261);
+		for (RouteProfile profile : PROFILES) {
+			for (int i = 0; i < 200; i++) {
+				int start = compact.nodeID(random.nextInt(compact.size()));
+				int target = compact.nodeID(random.nextInt(compact.size()));
+				RouteResult expected = onHeap.route(start, target,
+						RouteService.Algorithm.ASTAR, profile);
+				RouteResult actual = offHeap.route(start, target,
+						RouteService.Algorithm.ASTAR, profile);
+				String pair = profile + " " + start + " -> " + target;
+				assertEquals(expected.found, actual.found, pair);
+				if (!expected.found)
+					continue;
+				assertEquals(expected.cost, actual.cost, 1e-9, pair);
+				// equal cost routes can differ in length when timed.
+				if (!profile.timed)
+					assertEquals(expected.distance, actual.distance, 1e-9, pair);
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that FastParser reads the same nodes and segments as Parser, and
+ * the same numbers as Integer.parseInt and Double.parseDouble, including the
+ * ones its fast paths hand over to them.
+ */
+class ParserTest {
+
+	@Test
+	void smallMap() {
+		checkSame(TestMaps.SMALL);
+	}
+
+	@Test
+	void generatedMap(@TempDir Path directory) throws Exception {
+		TestMaps.generate(NetworkGenerator.Topology.GEOMETRIC, directory.toFile());
+		checkSame(directory.toFile());
+	}
+
+	@Test
+	void edgeCaseNumbers(@TempDir Path directory) throws Exception {
+		List<String> numbers = new ArrayList<String>(Arrays.asList("0", "-0", "0.0",
+				"-0.0", ".5", "-.5", "5.", "007.25", "-36.8485", "174.7633",
+				// 15 and 16 significant digits, either side of the fast path.
+				"-36.8484610000001", "-36.84846100000012", "123456789012345",
+				"0.000000000000000000001", "0.00000000000000000000001",
+				"1e-3", "-1.5E2", "+1.5", "1.7976931348623157"));
+		Random random = new Random(13);
+		for (int i = 0; i < 2000; i++) {
+			// 1 to 18 digits, so some take the fast path and some don't.
+			long digits = (long) Math.pow(10, 1 + random.nextInt(18));
+			BigDecimal value = BigDecimal.valueOf(random.nextLong() % digits,
+					random.nextInt(20));
+			numbers.add(value.toPlainString());
+		}
+		int[] ids = { Integer.MIN_VALUE, Integer.MAX_VALUE, -7, 0, 7 };
+		String[] idTexts = { "-2147483648", "2147483647", "-0007", "-0", "07" };
+
+		// each number as a latitude and as a longitude, with a mix of line
+		// endings and extra tabs.
+		StringBuilder text = new StringBuilder();
+		Map<Integer, Location> expected = new HashMap<Integer, Location>();
+		for (int i = 0; i < numbers.size(); i++) {
+			String number = numbers.get(i);
+			double value = Double.parseDouble(number);
+			int id = 2 * i + 1;
+			text.append(id).append('\t').append(number).append("\t0\n");
+			expected.put(id, Location.newFromLatLon(value, 0));
+			text.append(id + 1).append("\t\t0\t").append(number).append(i % 2 == 0 ? "\r\n" : "\t\n");
+			expected.put(id + 1, Location.newFromLatLon(0, value));
+		}
+		for (int i = 0; i < ids.length; i++) {
+			text.append(idTexts[i]).append("\t1.5\t2.5\n");
+			expected.put(ids[i], Location.newFromLatLon(1.5, 2.5));
+		}
+		File nodeFile = directory.resolve("nodeID-lat-lon.tab").toFile();
+		Files.write(nodeFile.toPath(), text.toString().getBytes(StandardCharsets.US_ASCII));
+
+		Map<Integer, Node> nodes = FastParser.parseNodes(nodeFile, new Graph());
+		assertEquals(expected.keySet(), nodes.keySet());
+		for (Map.Entry<Integer, Location> node : expected.entrySet()) {
+			Location location = nodes.get(node.getKey()).location;
+			assertEquals(node.getValue().x, location.x, "node " + node.getKey());
+			assertEquals(node.getValue().y, location.y, "node " + node.getKey());
+		}
+	}
+
+	private static void checkSame(File directory) {
+		File nodeFile = new File(directory, "nodeID-lat-lon.tab");
+		File roadFile = new File(directory, "roadID-roadInfo.tab");
+		File segmentFile = new File(directory, "roadSeg-roadID-length-nodeID-nodeID-coords.tab");
+
+		Graph slow = new Graph();
+		slow.nodes = Parser.parseNodes(nodeFile, slow);
+		slow.roads = Parser.parseRoads(roadFile, slow);
+		Graph fast = new Graph();
+		fast.nodes = FastParser.parseNodes(nodeFile, fast);
+		fast.roads = Parser.parseRoads(roadFile, fast);
+		assertEquals(describeNodes(slow.nodes), describeNodes(fast.nodes));
+		assertEquals(describeSegments(Parser.parseSegments(segmentFile, slow)),
+				describeSegments(FastParser.parseSegments(segmentFile, fast)));
+	}
+
+	private static List<String> describeNodes(Map<Integer, Node> nodes) {
+		List<String> lines = new ArrayList<String>();
+		for (Node node : nodes.values())
+			lines.add(node.nodeID + " " + node.location.x + " " + node.location.y);
+		Collections.sort(lines);
+		return lines;
+	}
+
+	private static List<String> describeSegments(Collection<Segment> segments) {
+		List<String> lines = new ArrayList<String>();
+		for (Segment s : segments) {
+			StringBuilder line = new StringBuilder();
+			line.append(s.road.roadID + " " + s.length + " " + s.start.nodeID + " "
+					+ s.end.nodeID);
+			for (Location p : s.points)
+				line.append(" " + p.x + " " + p.y);
+			lines.add(line.toString());
+		}
+		Collections.sort(lines);
+		return lines;
+	}
+}
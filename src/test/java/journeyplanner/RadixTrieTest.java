@@ -0,0 +1,171 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks RadixTrie's prefix, exact and fuzzy searches, and its Cursor,
+ * against going through every road.
+ */
+class RadixTrieTest {
+	private static final int K = 7;
+
+	@Test
+	void topMatchesLinearScan() {
+		Collection<Road> roads = TestMaps.small().roads.values();
+		for (RadixTrie.Ranking ranking : RadixTrie.Ranking.values()) {
+			RadixTrie trie = new RadixTrie(roads, K, ranking);
+			Comparator<Road> order = order(ranking);
+			for (String prefix : prefixes(roads)) {
+				List<Road> matches = new ArrayList<Road>();
+				for (Road road : named(roads))
+					if (road.name.startsWith(prefix))
+						matches.add(road);
+				matches.sort(order);
+				assertArrayEquals(ids(matches, K), trie.top(prefix), prefix);
+				assertEquals(matches.size(), trie.count(prefix), prefix);
+
+				matches.removeIf(road -> !road.name.equals(prefix));
+				assertArrayEquals(ids(matches, matches.size()), trie.exact(prefix), prefix);
+			}
+		}
+	}
+
+	@Test
+	void fuzzyMatchesLinearScan() {
+		List<Road> roads = named(TestMaps.small().roads.values());
+		RadixTrie trie = new RadixTrie(roads, K, RadixTrie.Ranking.CLASS);
+		Comparator<Road> order = order(RadixTrie.Ranking.CLASS);
+		Random random = new Random(3);
+		for (int q = 0; q < 1500; q++) {
+			// a prefix of a real name with up to two typos.
+			String name = roads.get(random.nextInt(roads.size())).name;
+			StringBuilder query = new StringBuilder(name.substring(0,
+					1 + random.nextInt(Math.min(name.length(), 14))));
+			for (int typos = random.nextInt(3); typos > 0 && query.length() > 0; typos--) {
+				int at = random.nextInt(query.length());
+				char c = (char) ('a' + random.nextInt(26));
+				switch (random.nextInt(3)) {
+				case 0:
+					query.deleteCharAt(at);
+					break;
+				case 1:
+					query.setCharAt(at, c);
+					break;
+				default:
+					query.insert(at, c);
+				}
+			}
+			int maxDistance = random.nextInt(3);
+
+			Map<Road, Integer> distances = new HashMap<Road, Integer>();
+			for (Road road : roads) {
+				int distance = prefixDistance(query.toString(), road.name);
+				if (distance <= maxDistance)
+					distances.put(road, distance);
+			}
+			List<Road> matches = new ArrayList<Road>(distances.keySet());
+			matches.sort(Comparator.<Road> comparingInt(distances::get).thenComparing(order));
+			assertArrayEquals(ids(matches, K), trie.fuzzy(query.toString(), maxDistance),
+					query + " within " + maxDistance);
+		}
+	}
+
+	@Test
+	void cursorMatchesSearchingFromTheRoot() {
+		List<Road> roads = named(TestMaps.small().roads.values());
+		RadixTrie trie = new RadixTrie(roads, K, RadixTrie.Ranking.CLASS);
+		RadixTrie.Cursor cursor = trie.cursor();
+		Random random = new Random(4);
+		for (int step = 0; step < 5000; step++) {
+			int action = random.nextInt(10);
+			if (action < 6)
+				cursor.type((char) ('a' + random.nextInt(26)));
+			else if (action < 8 && !cursor.text().isEmpty())
+				cursor.back();
+			else {
+				String name = roads.get(random.nextInt(roads.size())).name;
+				cursor.moveTo(name.substring(0, random.nextInt(Math.min(4, name.length() + 1))));
+			}
+			String text = cursor.text();
+			assertArrayEquals(trie.top(text), cursor.top(), text);
+			assertArrayEquals(trie.exact(text), cursor.exact(), text);
+			assertEquals(trie.count(text), cursor.count(), text);
+		}
+	}
+
+	/**
+	 * The ranking a trie should give: for CLASS, the highest road class
+	 * first, then the longest road, then the lowest ID.
+	 */
+	private static Comparator<Road> order(RadixTrie.Ranking ranking) {
+		Comparator<Road> byLength = Comparator.<Road> comparingDouble(road -> -length(road))
+				.thenComparingInt(road -> road.roadID);
+		if (ranking == RadixTrie.Ranking.LENGTH)
+			return byLength;
+		return Comparator.<Road> comparingInt(road -> -road.roadclass).thenComparing(byLength);
+	}
+
+	private static double length(Road road) {
+		double length = 0;
+		for (Segment segment : road.components)
+			length += segment.length;
+		return length;
+	}
+
+	/**
+	 * Every prefix of every road name, and some that match nothing.
+	 */
+	private static Collection<String> prefixes(Collection<Road> roads) {
+		TreeSet<String> prefixes = new TreeSet<String>();
+		prefixes.add("");
+		prefixes.add("zzzq");
+		prefixes.add("qq");
+		for (Road road : roads)
+			for (int i = 1; i <= road.name.length(); i++)
+				prefixes.add(road.name.substring(0, i));
+		return prefixes;
+	}
+
+	// the roads with names, as in Trie.
+	private static List<Road> named(Collection<Road> roads) {
+		List<Road> named = new ArrayList<Road>(roads);
+		named.removeIf(road -> road.name.equals("-"));
+		return named;
+	}
+
+	private static int[] ids(List<Road> roads, int limit) {
+		return roads.stream().limit(limit).mapToInt(road -> road.roadID).toArray();
+	}
+
+	/**
+	 * The fewest edits that turn the query into a prefix of the name.
+	 */
+	private static int prefixDistance(String query, String name) {
+		int[] previous = new int[query.length() + 1];
+		for (int j = 0; j <= query.length(); j++)
+			previous[j] = j;
+		int best = previous[query.length()];
+		for (int i = 1; i <= name.length(); i++) {
+			int[] row = new int[query.length() + 1];
+			row[0] = i;
+			for (int j = 1; j <= query.length(); j++)
+				row[j] = Math.min(previous[j - 1] + (query.charAt(j - 1) == name.charAt(i - 1) ? 0 : 1),
+						Math.min(previous[j], row[j - 1]) + 1);
+			previous = row;
+			best = Math.min(best, row[query.length()]);
+		}
+		return best;
+	}
+}
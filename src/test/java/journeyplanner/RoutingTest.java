@@ -0,0 +1,95 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Checks that every search algorithm finds routes as short as Dijkstra's
+ * algorithm does, for a distance and a time profile, and that the routes it
+ * gives go from the start to the target and cost what it says.
+ */
+class RoutingTest {
+	private static final int QUERIES = 300;
+	private static final RouteProfile[] PROFILES = { RouteProfile.SHORTEST,
+			RouteProfile.CAR_FASTEST };
+
+	// no estimate at all, which makes A* Dijkstra's algorithm.
+	private static final Heuristic NONE = new Heuristic() {
+		@Override
+		public void target(int target) {
+		}
+
+		@Override
+		public double estimate(int node) {
+			return 0;
+		}
+	};
+
+	@Test
+	void smallMap() {
+		checkAll(TestMaps.small().compact);
+	}
+
+	@ParameterizedTest
+	@EnumSource(NetworkGenerator.Topology.class)
+	void generatedMaps(NetworkGenerator.Topology topology) {
+		checkAll(TestMaps.generated(topology).compact);
+	}
+
+	@Test
+	void randomGraphs() {
+		Random random = new Random(261);
+		for (int i = 0; i < 20; i++)
+			checkAll(TestMaps.random(random, 1 + random.nextInt(60), random.nextInt(150)));
+	}
+
+	private static void checkAll(CompactGraph graph) {
+		for (RouteProfile profile : PROFILES) {
+			PathSearch dijkstra = new AStarSearch(graph, profile, NONE);
+			PathSearch[] searches = { new AStarSearch(graph, profile),
+					new BidirectionalAStarSearch(graph, profile),
+					new AStarSearch(graph, profile, new LandmarkHeuristic(graph,
+							new Landmarks(graph, profile, 8, Landmarks.Strategy.AVOID))),
+					new ContractionHierarchySearch(new ContractionHierarchy(graph, profile)) };
+			Random random = new Random(5);
+			for (int q = 0; q < QUERIES; q++) {
+				int start = random.nextInt(graph.size()), target = random.nextInt(graph.size());
+				boolean found = dijkstra.search(start, target);
+				double best = dijkstra.cost();
+				for (PathSearch search : searches) {
+					String query = search.getClass().getSimpleName() + " (" + profile
+							+ ") from " + start + " to " + target;
+					assertEquals(found, search.search(start, target), query);
+					if (!found)
+						continue;
+					assertEquals(best, search.cost(), 1e-9 * Math.max(1, best), query);
+					checkPath(graph, profile, search, start, target, query);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Follows the path from the start, checking each segment carries on from
+	 * the last and the costs add up.
+	 */
+	private static void checkPath(CompactGraph graph, RouteProfile profile,
+			PathSearch search, int start, int target, String query) {
+		Node at = graph.node(start);
+		double cost = 0;
+		for (int s : search.path()) {
+			Segment segment = graph.segment(s);
+			assertTrue(segment.start == at || segment.end == at, query + ": path is broken");
+			at = segment.start == at ? segment.end : segment.start;
+			cost += profile.cost(segment);
+		}
+		assertEquals(graph.node(target), at, query + ": path doesn't reach the target");
+		assertEquals(search.cost(), cost, 1e-9 * Math.max(1, cost), query);
+	}
+}
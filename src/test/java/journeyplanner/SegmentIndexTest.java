@@ -0,0 +1,79 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that SegmentIndex visits exactly the segments whose bounding boxes
+ * overlap the query, each once, against looking at every segment.
+ */
+class SegmentIndexTest {
+
+	@Test
+	void smallMap() {
+		check(TestMaps.small().compact, new Random(3), 500);
+	}
+
+	@Test
+	void generatedMap() {
+		check(TestMaps.generated(NetworkGenerator.Topology.GEOMETRIC).compact,
+				new Random(4), 500);
+	}
+
+	@Test
+	void randomGraphs() {
+		Random random = new Random(5);
+		for (int i = 0; i < 500; i++)
+			check(TestMaps.random(random, 1 + random.nextInt(50), random.nextInt(200)),
+					random, 20);
+	}
+
+	private static void check(RoadNetwork graph, Random random, int queries) {
+		SegmentIndex index = new SegmentIndex(graph);
+		double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+		double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+		for (int v = 0; v < graph.size(); v++) {
+			x0 = Math.min(x0, graph.x(v));
+			y0 = Math.min(y0, graph.y(v));
+			x1 = Math.max(x1, graph.x(v));
+			y1 = Math.max(y1, graph.y(v));
+		}
+		double width = x1 - x0, height = y1 - y0;
+		for (int q = 0; q < queries; q++) {
+			// windows from a sliver to more than the whole map, some of them
+			// partly or wholly off it.
+			double size = Math.pow(10, -3 + 3.5 * random.nextDouble());
+			double qx0 = x0 - width / 2 + 2 * width * random.nextDouble();
+			double qy0 = y0 - height / 2 + 2 * height * random.nextDouble();
+			double qx1 = qx0 + size * width, qy1 = qy0 + size * height;
+
+			List<Integer> expected = new ArrayList<Integer>();
+			for (int s = 0; s < graph.segmentCount(); s++)
+				if (overlaps(graph, s, qx0, qy0, qx1, qy1))
+					expected.add(s);
+			List<Integer> visited = new ArrayList<Integer>();
+			index.query(qx0, qy0, qx1, qy1, visited::add);
+			Collections.sort(visited);
+			assertEquals(expected, visited);
+		}
+	}
+
+	private static boolean overlaps(RoadNetwork graph, int s, double x0, double y0,
+			double x1, double y1) {
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int p = 0; p < graph.pointCount(s); p++) {
+			minX = Math.min(minX, graph.pointX(s, p));
+			minY = Math.min(minY, graph.pointY(s, p));
+			maxX = Math.max(maxX, graph.pointX(s, p));
+			maxY = Math.max(maxY, graph.pointY(s, p));
+		}
+		return maxX >= x0 && minX <= x1 && maxY >= y0 && minY <= y1;
+	}
+}
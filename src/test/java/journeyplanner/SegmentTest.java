@@ -0,0 +1,93 @@
+package journeyplanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the levels of detail segments are drawn at: each is made of the
+ * segment's own points, keeps its ends, stays within its tolerance of every
+ * point, and is no finer than the level after it; and the level picked for a
+ * scale is the coarsest that's less than a pixel out.
+ */
+class SegmentTest {
+
+	@Test
+	void smallMapLevels() {
+		CompactGraph graph = TestMaps.small().compact;
+		for (int s = 0; s < graph.segmentCount(); s++)
+			check(graph.segment(s));
+	}
+
+	@Test
+	void wigglyLevels() {
+		Random random = new Random(11);
+		for (int i = 0; i < 500; i++) {
+			// a random walk, with steps from a metre to a few hundred.
+			int n = 2 + random.nextInt(200);
+			double step = Math.pow(10, -3 + 2.5 * random.nextDouble());
+			Location[] points = new Location[n];
+			double x = 0, y = 0;
+			for (int p = 0; p < n; p++) {
+				points[p] = new Location(x, y);
+				x += step * random.nextGaussian();
+				y += step * random.nextGaussian();
+			}
+			Node start = new Node(0, points[0]), end = new Node(1, points[n - 1]);
+			Road road = new Road(i, 0, "road", "city", 0, 0, 0, 0, 0, 0);
+			check(new Segment(road, start, end, 1, points));
+		}
+	}
+
+	@Test
+	void levelIsCoarsestWithinAPixel() {
+		for (double scale = Mapper.MIN_ZOOM; scale <= Mapper.MAX_ZOOM; scale *= Mapper.ZOOM_FACTOR) {
+			int level = Segment.detailLevel(scale);
+			if (level < Segment.DETAIL_LEVELS)
+				assertTrue(Segment.tolerance(level) * scale < 1, "scale " + scale);
+			if (level > 0)
+				assertTrue(Segment.tolerance(level - 1) * scale >= 1 - 1e-9, "scale " + scale);
+		}
+	}
+
+	private static void check(Segment segment) {
+		Location[] points = segment.points;
+		int finer = points.length;
+		for (int k = Segment.DETAIL_LEVELS - 1; k >= 0; k--) {
+			Location[] line = segment.line(k);
+			String level = "segment " + segment.road.roadID + ", level " + k;
+			assertSame(points[0], line[0], level);
+			assertSame(points[points.length - 1], line[line.length - 1], level);
+			assertTrue(line.length <= finer, level);
+			finer = line.length;
+
+			// the line's points are the segment's, in order, and every point
+			// left out is close to the piece of line that skips it.
+			int p = 0;
+			for (int i = 1; i < line.length; i++) {
+				int from = p;
+				while (points[p] != line[i])
+					p++;
+				for (int q = from + 1; q < p; q++)
+					assertTrue(distance(points[q], line[i - 1], line[i]) <= Segment.tolerance(k) + 1e-12,
+							level + ", point " + q);
+			}
+			assertEquals(points.length - 1, p, level);
+		}
+	}
+
+	/**
+	 * The distance from p to the piece of line from a to b.
+	 */
+	private static double distance(Location p, Location a, Location b) {
+		double dx = b.x - a.x, dy = b.y - a.y;
+		double lengthSq = dx * dx + dy * dy;
+		double t = lengthSq == 0 ? 0
+				: Math.max(0, Math.min(1, ((p.x - a.x) * dx + (p.y - a.y) * dy) / lengthSq));
+		return Math.hypot(p.x - (a.x + t * dx), p.y - (a.y + t * dy));
+	}
+}
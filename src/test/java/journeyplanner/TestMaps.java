@@ -0,0 +1,95 @@
+package journeyplanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The maps the tests run on: the small Auckland map, small generated maps of
+ * each topology, and random graphs made straight from nodes and segments.
+ * Loaded maps are kept, as several tests use each of them. Generated maps are
+ * written to a temporary directory that's deleted as soon as they're loaded.
+ */
+final class TestMaps {
+	static final File SMALL = new File("src/small");
+	// big enough to have long routes and a few hundred articulation points,
+	// small enough to build a contraction hierarchy in a moment.
+	static final int GENERATED_NODES = 2000;
+
+	private static Graph small;
+	private static final Map<NetworkGenerator.Topology, Graph> generated = new EnumMap<>(
+			NetworkGenerator.Topology.class);
+
+	private TestMaps() {
+	}
+
+	static synchronized Graph small() {
+		if (small == null)
+			small = Graph.fromDirectory(SMALL);
+		return small;
+	}
+
+	static synchronized Graph generated(NetworkGenerator.Topology topology) {
+		Graph graph = generated.get(topology);
+		if (graph == null) {
+			File directory = null;
+			try {
+				directory = Files.createTempDirectory("journeyplanner-" + topology).toFile();
+				generate(topology, directory);
+				graph = Graph.fromDirectory(directory);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				if (directory != null)
+					delete(directory);
+			}
+			generated.put(topology, graph);
+		}
+		return graph;
+	}
+
+	/**
+	 * Writes a generated map into the given directory, with a tenth of its
+	 * roads one way.
+	 */
+	static void generate(NetworkGenerator.Topology topology, File directory)
+			throws IOException {
+		new NetworkGenerator(GENERATED_NODES, topology, 0.1, 261).write(directory);
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null)
+			for (File inside : files)
+				delete(inside);
+		file.delete();
+	}
+
+	/**
+	 * A graph of n nodes scattered over a couple of km, with m segments
+	 * between random nodes, so there are loops, parallel segments, one way
+	 * roads and pieces that aren't connected. Segment lengths are at least
+	 * the straight line distance, as in real data.
+	 */
+	static CompactGraph random(Random random, int n, int m) {
+		List<Node> nodes = new ArrayList<Node>();
+		for (int v = 0; v < n; v++)
+			nodes.add(new Node(v, new Location(2 * random.nextDouble(), 2 * random.nextDouble())));
+		List<Segment> segments = new ArrayList<Segment>();
+		for (int s = 0; s < m; s++) {
+			Node start = nodes.get(random.nextInt(n)), end = nodes.get(random.nextInt(n));
+			Road road = new Road(s, 0, "road " + s, "auckland", random.nextInt(5) == 0 ? 1 : 0,
+					random.nextInt(8), random.nextInt(5), 0, 0, 0);
+			double length = start.location.distance(end.location) * (1 + random.nextDouble());
+			segments.add(new Segment(road, start, end, length,
+					new Location[] { start.location, end.location }));
+		}
+		return new CompactGraph(nodes, segments);
+	}
+}